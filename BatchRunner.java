@@ -0,0 +1,140 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A pipelined runner of batches: each batch is imported on an I/O pool, then built and its NN-paths found on a compute pool, and handed to the caller in batch order.
+ * Up to concurrency batches are computed at once, and one more is imported ahead, so importing batch N+1 overlaps computing batch N.
+ * Each edge file is imported once as a Topology, shared by the batches of its location sets; see Builder.setSharedTopology().
+ * The output is the same as of building the batches one after another.
+ */
+public class BatchRunner implements AutoCloseable {
+	/** Threads for imports, created as needed, as I/O waits more than it computes */
+	private final ExecutorService io;
+	/** Threads for building and NN-paths, one per batch computed at once */
+	private final ExecutorService compute;
+	protected final int concurrency;
+	/** Makes the builder of each batch, with its settings */
+	private final Supplier<Builder> builders;
+	/** The topology of each edge file in use, by its index; dropped after its last batch */
+	private final ConcurrentHashMap<Integer, CompletableFuture<Topology>> topologies;
+
+	/** A batch through its stages: the builder, and the graph imported */
+	private static class Batch {
+		final int index;
+		final Builder builder;
+		Importer importer;
+		Topology topology;
+
+		Batch(int index, Builder builder) {
+			this.index = index;
+			this.builder = builder;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 * @param  concurrency The number of batches computed at once; at least 1.
+	 * @param  builders    Makes the builder of each batch, e.g. Builder::new; its import settings are used too.
+	 */
+	BatchRunner(int concurrency, Supplier<Builder> builders) {
+		if (concurrency < 1)
+			throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+		this.concurrency = concurrency;
+		this.builders = builders;
+		io = Executors.newCachedThreadPool(daemon("io"));
+		compute = Executors.newFixedThreadPool(concurrency, daemon("compute"));
+		topologies = new ConcurrentHashMap<Integer, CompletableFuture<Topology>>();
+	}
+
+	private static ThreadFactory daemon(String name) {
+		return r -> {
+			Thread thread = new Thread(r, "batch-" + name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Run the batches from first to last, each built and its NN-paths formatted as by Builder.build().
+	 * @param  first  Index of the first batch, 1-27.
+	 * @param  last   Index of the last batch.
+	 * @param  output Takes the builder of each batch, after its NN-paths, and its index; called on this thread, in batch order.
+	 * @throws Exception The first exception of any batch, in batch order; the later batches are not output.
+	 */
+	public void run(int first, int last, ObjIntConsumer<Builder> output) throws Exception {
+		// the batches in flight, oldest first
+		ArrayDeque<CompletableFuture<Batch>> window = new ArrayDeque<CompletableFuture<Batch>>();
+		int next = first;
+		while (next <= last || !window.isEmpty()) {
+			// control: keep the pools busy, and one batch importing ahead
+			while (next <= last && window.size() < concurrency + 1)
+				window.add(submit(next++));
+			Batch batch;
+			try {
+				batch = window.poll().get();
+			}
+			catch (ExecutionException e) {
+				for (CompletableFuture<Batch> pending : window)
+					pending.cancel(true);
+				throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+			}
+			output.accept(batch.builder, batch.index);
+			// control: the last batch of its edge file
+			if (batch.index == last || batch.importer.edgeFile(batch.index) != batch.importer.edgeFile(batch.index + 1))
+				topologies.remove(batch.importer.edgeFile(batch.index));
+		}
+	}
+
+	/**
+	 * Start a batch through the stages: import, on the I/O pool; then build and NN-paths, on the compute pool.
+	 */
+	private CompletableFuture<Batch> submit(int index) {
+		return CompletableFuture.supplyAsync(() -> importBatch(new Batch(index, builders.get())), io)
+			.thenApplyAsync(batch -> {
+				batch.builder.buildGraph(batch.importer, batch.topology);
+				batch.builder.buildNN();
+				return batch;
+			}, compute);
+	}
+
+	/**
+	 * The I/O stage: import the nodes of a batch, and the topology of its edge file, unless under way for another batch.
+	 */
+	private Batch importBatch(Batch batch) {
+		try {
+			long start = Stats.start();
+			batch.importer = batch.builder.newImporter();
+			batch.importer.importNodes(batch.index);
+			CompletableFuture<Topology> topology = topologies.computeIfAbsent(batch.importer.edgeFile(batch.index),
+				k -> CompletableFuture.supplyAsync(() -> {
+					try {
+						return batch.builder.newImporter().importTopology(batch.index);
+					}
+					catch (Exception e) {
+						throw new CompletionException(e);
+					}
+				}, io));
+			batch.topology = topology.join();
+			batch.builder.getStats().stop(Stats.IMPORT, start);
+			return batch;
+		}
+		catch (CompletionException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			throw new CompletionException(e);
+		}
+	}
+
+	/**
+	 * Shut down the threads.
+	 */
+	public void close() {
+		io.shutdownNow();
+		compute.shutdownNow();
+	}
+}
@@ -0,0 +1,90 @@
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * The operations timed by the JMH suite in bench/, each prepared on one graph and wrapped as a Callable.
+ * JMH benchmarks must be in a named package, which cannot refer to the classes of this default package; so the suite looks up target() once per trial, by reflection, and then only calls the Callables.
+ * Each call repeats the operation on fresh state, the small reset included: e.g. computeAllStations() consumes its stations, and pathReduce() its paths.
+ */
+public class BenchmarkTargets {
+	/** The operations, by name */
+	public static final String IMPORT = "importGraph", BUILD = "buildGraph", COMPUTE = "computeAllStations",
+		REDUCE = "pathReduce", SHORTEST = "findShortestPath";
+	/** Datasets in the order of filename.txt, each with easy, medium and hard locations */
+	private static final List<String> DATASETS = Arrays.asList("small-1", "small-2", "small-3",
+		"medium-1", "medium-2", "medium-3", "large-1", "large-2", "large-3");
+	private static final List<String> LOCATIONS = Arrays.asList("easy", "medium", "hard");
+
+	private BenchmarkTargets() {
+	}
+
+
+	/**
+	 * @param  dataset   Name of the dataset: small-1 to large-3.
+	 * @param  locations Name of the location set: easy, medium or hard.
+	 * @return index Of the graph, 1-27, as in Importer.importGraph().
+	 */
+	public static int graphIndex(String dataset, String locations) {
+		int batch = DATASETS.indexOf(dataset), level = LOCATIONS.indexOf(locations);
+		if (batch == -1 || level == -1)
+			throw new IllegalArgumentException("No graph " + dataset + "/" + locations);
+		return 3*batch + level + 1;
+	}
+
+
+	/**
+	 * Prepare an operation on a graph.
+	 * @param  operation One of IMPORT, BUILD, COMPUTE, REDUCE or SHORTEST.
+	 * @param  dataset   Name of the dataset: small-1 to large-3.
+	 * @param  locations Name of the location set: easy, medium or hard.
+	 * @return target Runs the operation once per call, and returns its result so it is not optimized away.
+	 */
+	public static Callable<Object> target(String operation, String dataset, String locations) throws Exception {
+		final int whichGraph = graphIndex(dataset, locations);
+		if (operation.equals(IMPORT)) {
+			return () -> {
+				Importer importer = new Importer();
+				importer.importGraph(whichGraph);
+				return importer;
+			};
+		}
+		if (operation.equals(BUILD))
+			return () -> new Builder().buildGraph(whichGraph);
+
+		final NNGraph<Integer, Integer> graph = new Builder().buildGraph(whichGraph);
+		if (operation.equals(COMPUTE)) {
+			return () -> {
+				graph.stationsToCompute = new ArrayList<Integer>(graph.stations);
+				return graph.computeAllStations();
+			};
+		}
+		if (operation.equals(REDUCE)) {
+			// the paths to reduce, computed once; pathReduce() empties listOfPaths, but keeps each path as it is
+			final ArrayList<ArrayList<Integer>> paths = new ArrayList<ArrayList<Integer>>(graph.computeAllStations());
+			return () -> {
+				graph.listOfPaths = new ArrayList<ArrayList<Integer>>(paths);
+				graph.buffer = new ArrayList<ArrayList<Integer>>();
+				graph.reducedPaths = new ArrayList<ArrayList<Integer>>();
+				return graph.pathReduce();
+			};
+		}
+		if (operation.equals(SHORTEST)) {
+			// from each station to each depot in turn, one pair per call
+			final ArrayList<Integer> sources = new ArrayList<Integer>(graph.stations);
+			final ArrayList<Integer> targets = new ArrayList<Integer>();
+			for (int v = 0; v < graph.getSizeV(); v++) {
+				if (graph.nodeAt(v).type() == 1)
+					targets.add(graph.nodeAt(v).getKey());
+			}
+			final int[] call = new int[1];
+			return () -> {
+				int i = call[0]++;
+				return graph.findShortestPath(sources.get(i % sources.size()), targets.get(i % targets.size()));
+			};
+		}
+		throw new IllegalArgumentException("No operation " + operation);
+	}
+}
@@ -0,0 +1,119 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * Dial's bucket queue of vertex ids, for Dijkstra's algorithm with small non-negative integer weights.
+ * Since keys are polled in non-decreasing order and a new key exceeds the last polled key by at most maxWeight, maxWeight+1 buckets used circularly hold the queue.
+ * Each bucket is a doubly-linked list through arrays indexed by vertex id, so insert and decrease-key are O(1); poll scans at most maxWeight+1 empty buckets.
+ */
+public class BucketQueue implements VertexQueue {
+	/** First vertex of each bucket; -1 if empty */
+	private final int[] bucket;
+	/** Doubly-linked list of the vertices in the same bucket; -1 at the ends */
+	private final int[] next, prev;
+	/** Key of each vertex */
+	private final int[] key;
+	/** Whether each vertex is in the queue */
+	private final boolean[] queued;
+	/** Lower bound on all keys in the queue */
+	private int current;
+	private final int maxWeight;
+	private int size;
+
+	/**
+	 * Constructor.
+	 * @param  capacity  The number of vertices, i.e. ids are 0 to capacity-1.
+	 * @param  maxWeight The largest edge weight, non-negative.
+	 */
+	BucketQueue(int capacity, int maxWeight) {
+		if (maxWeight < 0)
+			throw new IllegalArgumentException("Bucket queue needs non-negative weights");
+		this.maxWeight = maxWeight;
+		bucket = new int[maxWeight+1];
+		next = new int[capacity];
+		prev = new int[capacity];
+		key = new int[capacity];
+		queued = new boolean[capacity];
+		Arrays.fill(bucket, -1);
+	}
+
+	public void offer(int v, int newKey) {
+		// an empty queue may restart anywhere, but keeps the last key polled if in range
+		if (size == 0 && (newKey < current || newKey > current + maxWeight))
+			current = newKey;
+		// the circular buckets only cover current to current+maxWeight
+		if (newKey < current || newKey > current + maxWeight)
+			throw new IllegalArgumentException("Key " + newKey + " outside of bucket range " + current + " to " + (current + maxWeight));
+		if (queued[v])
+			unlink(v);
+		else {
+			queued[v] = true;
+			size++;
+		}
+		key[v] = newKey;
+		// push to the front of its bucket
+		int b = newKey % bucket.length;
+		next[v] = bucket[b];
+		prev[v] = -1;
+		if (bucket[b] != -1)
+			prev[bucket[b]] = v;
+		bucket[b] = v;
+	}
+
+	public int poll() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		int v = bucket[advance()];
+		unlink(v);
+		queued[v] = false;
+		size--;
+		return v;
+	}
+
+	public int minKey() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		return key[bucket[advance()]];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		for (int b = 0; b < bucket.length; b++) {
+			for (int v = bucket[b]; v != -1; v = next[v])
+				queued[v] = false;
+			bucket[b] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Move current up to the first non-empty bucket; queue must not be empty.
+	 * @return index Of the bucket.
+	 */
+	private int advance() {
+		while (bucket[current % bucket.length] == -1)
+			current++;
+		return current % bucket.length;
+	}
+
+	/**
+	 * Remove a vertex from the list of its bucket.
+	 */
+	private void unlink(int v) {
+		if (prev[v] != -1)
+			next[prev[v]] = next[v];
+		else
+			bucket[key[v] % bucket.length] = next[v];
+		if (next[v] != -1)
+			prev[next[v]] = prev[v];
+	}
+}
@@ -1,4 +1,5 @@
 import java.util.*;
+import java.io.*;
 
 /**
  * @author Wah Loon Keng
@@ -8,6 +9,31 @@ public class Builder {
 	private Importer importer;
 	protected NNGraph<Integer, Integer> graph;
 	protected ArrayList<ArrayList<Integer>> reducedPaths;
+	/** Passed on to each graph built; see NNGraph.setMultiSource() and Graph.setFrozenSearch() */
+	protected boolean multiSource = false, frozenSearch = false;
+	/** Passed on to each graph built; see Graph.setQueueType() */
+	protected int queueType = VertexQueue.PRIORITY;
+	/** Passed on to each graph built; see NNGraph.setReduceMode() */
+	protected int reduceMode = NNGraph.REDUCE_SUBLIST;
+	/** Passed on to the importer; see Importer.setMapped() */
+	protected boolean mappedImport = false;
+	/** Passed on to the importer; see Importer.setParseThreads() */
+	protected int parseThreads = 1;
+	/** If true, each edge file is imported once as a Topology, and each graph cut from it; see setSharedTopology() */
+	protected boolean sharedTopology = false;
+	/** The topology of the last edge file imported, and its index */
+	private Topology topology;
+	private int topologyFile = -1;
+	/** Directory of graph snapshots to load from and save to; null for none, see setSnapshots() */
+	protected String snapshots;
+	/** If true, the NN-paths are collected into a PathSet instead of formatted in reducedPaths; see setFlatPaths() */
+	protected boolean flatPaths = false;
+	/** The NN-paths of the last graph, formatted, if flatPaths */
+	protected PathSet pathSet;
+	/** Index of the last graph built, as in Importer.importGraph(); -1 if not known. Passed on to it, for its events; see GraphEvents */
+	protected int dataset = -1;
+	/** The phase times and counters of the last graph built, passed on to it; see Stats */
+	protected final Stats stats = new Stats();
 
 
 	/**
@@ -18,6 +44,105 @@ public class Builder {
 	}
 
 
+	/**
+	 * Set the mode used by each NNGraph built to compute the paths from all stations.
+	 * @param multiSource If true, grow one shortest-path forest from all depots, which may give more paths; false otherwise. See NNGraph.setMultiSource().
+	 */
+	public void setMultiSource(boolean multiSource) {
+		this.multiSource = multiSource;
+	}
+
+
+	/**
+	 * Set each graph built to run its searches on the frozen CSR view.
+	 * @param frozenSearch If true, search the CSR arrays; false otherwise.
+	 */
+	public void setFrozenSearch(boolean frozenSearch) {
+		this.frozenSearch = frozenSearch;
+	}
+
+
+	/**
+	 * Set the priority queue used by Dijkstra's algorithm in each graph built.
+	 * @param queueType VertexQueue.PRIORITY (default), VertexQueue.DARY or VertexQueue.BUCKET
+	 */
+	public void setQueueType(int queueType) {
+		this.queueType = queueType;
+	}
+
+
+	/**
+	 * Set the algorithm of pathReduce() in each graph built.
+	 * @param reduceMode NNGraph.REDUCE_SUBLIST (default), NNGraph.REDUCE_FOREST or NNGraph.REDUCE_PARALLEL; see NNGraph.setReduceMode()
+	 */
+	public void setReduceMode(int reduceMode) {
+		this.reduceMode = reduceMode;
+	}
+
+
+	/**
+	 * Set how the data files are read.
+	 * @param mappedImport If true, memory-map and parse them by MappedParser; false otherwise, by Scanner.
+	 */
+	public void setMappedImport(boolean mappedImport) {
+		this.mappedImport = mappedImport;
+	}
+
+
+	/**
+	 * Set the number of threads to parse the edge files with, when mapped; see setMappedImport().
+	 * @param parseThreads If more than 1, each edge file is parsed in chunks in parallel.
+	 */
+	public void setParseThreads(int parseThreads) {
+		this.parseThreads = parseThreads;
+	}
+
+
+	/**
+	 * Import each edge file once, and build the graphs of its batch (its easy, medium and hard location sets) as overlays of it; see Topology.
+	 * The graphs are the same as built from the files; only the last topology is kept, so batches are best built in order.
+	 * @param sharedTopology If true, share the topology; false otherwise, import the edges for each graph.
+	 */
+	public void setSharedTopology(boolean sharedTopology) {
+		this.sharedTopology = sharedTopology;
+	}
+
+
+	/**
+	 * Load each graph from its snapshot in a directory instead of the data files; a graph without one, or whose data files changed since, is built from the data and saved there. See GraphSnapshot.fingerprint().
+	 * @param snapshots The directory, see GraphSnapshot.main(); null to always build from the data.
+	 */
+	public void setSnapshots(String snapshots) {
+		this.snapshots = snapshots;
+	}
+
+
+	/**
+	 * Collect the formatted NN-paths into a PathSet, see getPathSet(), instead of formatting reducedPaths in place: the keys and distances are stored flat, not boxed.
+	 * Then build() and buildNN() return reducedPaths as reduced, i.e. from station to depot without distances.
+	 * @param flatPaths If true, collect the paths into a PathSet; false otherwise, format reducedPaths by formatOutput().
+	 */
+	public void setFlatPaths(boolean flatPaths) {
+		this.flatPaths = flatPaths;
+	}
+
+
+	/**
+	 * @return pathSet The formatted NN-paths of the last graph, if setFlatPaths(); null otherwise.
+	 */
+	public PathSet getPathSet() {
+		return pathSet;
+	}
+
+
+	/**
+	 * @return stats The phase times and search counters of the last graph built and its NN-paths; all 0 unless Stats.ENABLED.
+	 */
+	public Stats getStats() {
+		return stats;
+	}
+
+
 	/**
 	 * The single primary method called in the class.
 	 * From a specified data, build the graph and its Nearest-Neighbor paths, i.e. run all the methods from importing to building the NNGraph.
@@ -37,36 +162,148 @@ public class Builder {
 	 * @return graph Built from the data.
 	 */
 	protected NNGraph<Integer,Integer> buildGraph(int whichGraph) throws Exception {
-		importGraph(whichGraph);
-		// reset
-		graph = new NNGraph<Integer, Integer>();
-		// add depot nodes
-		for (int key : importer.depotList)
-			graph.addNode(key, key, 1);
-		// add station nodes
-		for (int key : importer.stationList){
-			graph.addNode(key, key, -1);
+		GraphEvents.BuildGraph event = new GraphEvents.BuildGraph();
+		event.begin();
+		dataset = whichGraph;
+		commit(event, buildFrom(whichGraph));
+		return graph;
+	}
+
+
+	/**
+	 * Build a specified graph, from its snapshot if any, else its data; see buildGraph().
+	 * @param  whichGraph Index of the graph data.
+	 * @return source Of the graph: "snapshot", "topology" or "files".
+	 */
+	private String buildFrom(int whichGraph) throws Exception {
+		stats.reset();
+		long start = Stats.start();
+		String snapshot = (snapshots == null) ? null : GraphSnapshot.fileOf(snapshots, whichGraph);
+		importer = newImporter();
+		int source = 0;
+		if (snapshot != null) {
+			source = GraphSnapshot.fingerprint(importer.dataFiles(whichGraph));
+			// a snapshot of other data files is stale: build again, and overwrite it
+			if (new File(snapshot).exists() && GraphSnapshot.sourceOf(snapshot) == source) {
+				graph = GraphSnapshot.load(snapshot);
+				stats.stop(Stats.IMPORT, start);
+				configure();
+				return "snapshot";
+			}
 		}
-		// add valid edges
-		Iterator<Integer> itr = importer.edgeList.iterator();
-		while(itr.hasNext()) {
-			int k1 = itr.next();
-			int k2 = itr.next();
-			int weight = itr.next();
-			graph.addEdge(k1, k2, weight);
+		importer.importNodes(whichGraph);
+		if (sharedTopology) {
+			if (topology == null || topologyFile != importer.edgeFile(whichGraph)) {
+				topology = importer.importTopology(whichGraph);
+				topologyFile = importer.edgeFile(whichGraph);
+			}
+			stats.stop(Stats.IMPORT, start);
+			overlay(importer, topology);
+		}
+		else {
+			stats.stop(Stats.IMPORT, start);
+			start = Stats.start();
+			// reset
+			graph = new NNGraph<Integer, Integer>();
+			configure();
+			// add depot nodes
+			for (int key : importer.depotList)
+				graph.addNode(key, key, 1);
+			// add station nodes
+			for (int key : importer.stationList){
+				graph.addNode(key, key, -1);
+			}
+			stats.stop(Stats.BUILD, start);
+			start = Stats.start();
+			// add valid edges, straight from the file; timed as import, as their parsing is with a shared topology
+			importer.importEdges(whichGraph, (k1, k2, weight) -> graph.addEdge(k1, k2, weight));
+			stats.stop(Stats.IMPORT, start);
+		}
+		if (snapshot != null) {
+			new File(snapshots).mkdirs();
+			GraphSnapshot.save(graph, snapshot, source);
 		}
 
+		return sharedTopology ? "topology" : "files";
+	}
+
+
+	/**
+	 * Build a graph as an overlay of a topology, with nodes imported already; see setSharedTopology().
+	 * @param  importer   Of the nodes, after Importer.importNodes().
+	 * @param  topology   Of the edge file of the graph.
+	 * @return graph Built from the data.
+	 */
+	protected NNGraph<Integer,Integer> buildGraph(Importer importer, Topology topology) {
+		GraphEvents.BuildGraph event = new GraphEvents.BuildGraph();
+		event.begin();
+		dataset = importer.dataset;
+		overlay(importer, topology);
+		commit(event, "topology");
 		return graph;
 	}
 
 
+	/**
+	 * Build a graph as an overlay of a topology; see buildGraph(importer, topology).
+	 */
+	private void overlay(Importer importer, Topology topology) {
+		this.importer = importer;
+		long start = Stats.start();
+		graph = topology.overlay(importer.depotList, importer.stationList);
+		stats.stop(Stats.BUILD, start);
+		configure();
+	}
+
+
+	/**
+	 * Commit the event of a graph built, if recorded; see GraphEvents.
+	 * @param  event  Begun before the graph was built.
+	 * @param  source Of the graph: "snapshot", "topology" or "files".
+	 */
+	private void commit(GraphEvents.BuildGraph event, String source) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.dataset = dataset;
+			event.source = source;
+			event.vertices = graph.getSizeV();
+			event.edges = graph.getSizeE();
+			event.commit();
+		}
+	}
+
+
+	/**
+	 * @return importer A new one, with the import settings of this builder.
+	 */
+	protected Importer newImporter() {
+		Importer importer = new Importer();
+		importer.setMapped(mappedImport);
+		importer.setParseThreads(parseThreads);
+		return importer;
+	}
+
+
+	/**
+	 * Pass the settings of this builder on to the graph built.
+	 */
+	private void configure() {
+		graph.setMultiSource(multiSource);
+		graph.setFrozenSearch(frozenSearch);
+		graph.setQueueType(queueType);
+		graph.setReduceMode(reduceMode);
+		graph.setStats(stats);
+		graph.setDataset(dataset);
+	}
+
+
 	/**
 	 * Build the NN-Graph and format the output.
-	 * @return reducedPaths Formatted paths with distances at the last entry.
+	 * @return reducedPaths Formatted paths with distances at the last entry; as reduced, if setFlatPaths().
 	 */
 	protected ArrayList<ArrayList<Integer>> buildNN() {
 		runNN();
-		return formatOutput();
+		return formatPaths();
 	}
 
 
@@ -80,6 +317,60 @@ public class Builder {
 		return reducedPaths;
 	}
 
+	/**
+	 * Apply a batch of new edge weights to the graph built, instead of building it again.
+	 * The frozen view and a customizable hierarchy, if any, are only updated by weight at the next search; see Graph.setWeight().
+	 * @param  edges The new weights, as in the edge list of Importer: key, key, weight of each edge in turn.
+	 * @return count The number of edges found and updated.
+	 */
+	public int reweight(List<Integer> edges) {
+		int count = 0;
+		Iterator<Integer> itr = edges.iterator();
+		while(itr.hasNext()) {
+			int k1 = itr.next();
+			int k2 = itr.next();
+			int weight = itr.next();
+			if (graph.setWeight(k1, k2, weight))
+				count++;
+		}
+		return count;
+	}
+
+
+	/**
+	 * Build the NN-Graph again by the current weights, e.g. after reweight(), and format the output.
+	 * @return reducedPaths Formatted paths with distances at the last entry; as reduced, if setFlatPaths().
+	 */
+	public ArrayList<ArrayList<Integer>> rebuildNN() {
+		reducedPaths = graph.rerunNN();
+		return formatPaths();
+	}
+
+
+	/**
+	 * Format the NN-paths by the setting of setFlatPaths(): into a PathSet, or in reducedPaths.
+	 * @return reducedPaths Formatted by formatOutput(); as reduced, if flatPaths.
+	 */
+	protected ArrayList<ArrayList<Integer>> formatPaths() {
+		if (!flatPaths)
+			return formatOutput();
+		collectPaths();
+		return reducedPaths;
+	}
+
+
+	/**
+	 * Collect the NN-paths into a PathSet, formatted as by formatOutput(), leaving reducedPaths as they are.
+	 * @return pathSet The formatted paths; also kept, see getPathSet().
+	 */
+	protected PathSet collectPaths() {
+		long start = Stats.start();
+		pathSet = PathSet.of(graph, reducedPaths);
+		stats.stop(Stats.FORMAT, start);
+		return pathSet;
+	}
+
+
 	/**
 	 * Format the output for project requirement: 
 	 * <depot> <station> ... <station> <path distance>
@@ -87,6 +378,7 @@ public class Builder {
 	 * @return reducedPaths After formatted.
 	 */
 	protected ArrayList<ArrayList<Integer>> formatOutput() {
+		long start = Stats.start();
 		for (ArrayList<Integer> tmpPath : reducedPaths) {
 			// reverse path to start from depot
 			Collections.reverse(tmpPath);
@@ -94,18 +386,9 @@ public class Builder {
 			int distance = graph.pathLength(tmpPath);
 			tmpPath.add(distance);
 		}
+		stats.stop(Stats.FORMAT, start);
 		return reducedPaths;
 	}
 
 
-	/**
-	 * Import a specified graph data.
-	 * @param  whichGraph Index of the graph data.
-	 */
-	private void importGraph(int whichGraph) throws Exception {
-		importer = new Importer();
-		importer.importGraph(whichGraph);
-	}
-
-
 }
\ No newline at end of file
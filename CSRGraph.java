@@ -0,0 +1,420 @@
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A frozen, compressed sparse row (CSR) view of a Graph.
+ * Vertices are numbered by their dense id in the Graph; the arcs out of vertex v are at index offsets[v] to offsets[v+1]-1 of targets and weights.
+ * Each undirected edge is stored as two arcs, in the same order as the adjacency lists of the Graph.
+ * The view is immutable: build a new one (see Graph.freeze()) after the Graph is modified.
+ */
+public class CSRGraph<K> {
+	protected final int sizeV, sizeE;
+	/** Arcs of vertex v are at offsets[v] to offsets[v+1]-1 */
+	protected final int[] offsets;
+	/** Target vertex id and weight of each arc */
+	protected final int[] targets, weights;
+	/** Type of each vertex: 1 depot; -1 station; 0 unknown */
+	protected final byte[] types;
+	/** Key of each vertex, by id; and id of each key */
+	protected final ArrayList<K> keys;
+	protected final HashMap<K, Integer> ids;
+	/** The largest arc weight */
+	protected final int maxWeight;
+
+	/**
+	 * Constructor.
+	 * Copies the vertices and adjacency lists of a graph into flat arrays.
+	 * @param  graph The graph to freeze.
+	 */
+	<E> CSRGraph(Graph<K, E> graph) {
+		sizeV = graph.getSizeV();
+		sizeE = graph.getSizeE();
+		offsets = new int[sizeV+1];
+		types = new byte[sizeV];
+		keys = new ArrayList<K>(sizeV);
+		ids = new HashMap<K, Integer>();
+		// count arcs first
+		for (int v = 0; v < sizeV; v++) {
+			Node<K, E> node = graph.nodeAt(v);
+			offsets[v+1] = offsets[v] + node.getDegree();
+			types[v] = (byte) node.type();
+			keys.add(node.getKey());
+			ids.put(node.getKey(), v);
+		}
+		targets = new int[offsets[sizeV]];
+		weights = new int[offsets[sizeV]];
+		// then fill them in adjacency order
+		int max = 0;
+		for (int v = 0; v < sizeV; v++) {
+			int arc = offsets[v];
+			Iterator<Edge<K, E>> itr = graph.nodeAt(v).getItr();
+			while (itr.hasNext()) {
+				Edge<K, E> tmp = itr.next();
+				targets[arc] = tmp.target.getId();
+				weights[arc] = tmp.weight;
+				max = Math.max(max, tmp.weight);
+				arc++;
+			}
+		}
+		maxWeight = max;
+	}
+
+	/**
+	 * Constructor.
+	 * A view of the same vertices and edges as another view, with the current weights of a graph; the topology arrays are shared.
+	 * @param  topology The last view of the graph, whose vertices and edges are unchanged since.
+	 * @param  graph    The graph, to copy the weights of.
+	 */
+	<E> CSRGraph(CSRGraph<K> topology, Graph<K, E> graph) {
+		sizeV = topology.sizeV;
+		sizeE = topology.sizeE;
+		offsets = topology.offsets;
+		targets = topology.targets;
+		types = topology.types;
+		keys = topology.keys;
+		ids = topology.ids;
+		weights = new int[offsets[sizeV]];
+		// same adjacency order as the topology
+		int max = 0;
+		for (int v = 0; v < sizeV; v++) {
+			int arc = offsets[v];
+			Iterator<Edge<K, E>> itr = graph.nodeAt(v).getItr();
+			while (itr.hasNext()) {
+				weights[arc] = itr.next().weight;
+				max = Math.max(max, weights[arc]);
+				arc++;
+			}
+		}
+		maxWeight = max;
+	}
+
+	/**
+	 * Constructor.
+	 * A view of a graph from arrays already in CSR layout, e.g. of a snapshot, which are kept as they are; see Graph.loadArcs().
+	 * @param  graph   The graph, for the keys and types of its vertices.
+	 * @param  offsets Arcs of vertex v are at offsets[v] to offsets[v+1]-1, in the order of its adjacency list.
+	 * @param  targets Target vertex id of each arc.
+	 * @param  weights Weight of each arc.
+	 */
+	<E> CSRGraph(Graph<K, E> graph, int[] offsets, int[] targets, int[] weights) {
+		sizeV = graph.getSizeV();
+		sizeE = graph.getSizeE();
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		types = new byte[sizeV];
+		keys = new ArrayList<K>(sizeV);
+		ids = new HashMap<K, Integer>();
+		for (int v = 0; v < sizeV; v++) {
+			Node<K, E> node = graph.nodeAt(v);
+			types[v] = (byte) node.type();
+			keys.add(node.getKey());
+			ids.put(node.getKey(), v);
+		}
+		int max = 0;
+		for (int w : weights)
+			max = Math.max(max, w);
+		maxWeight = max;
+	}
+
+	/**
+	 * @return size The number of vertices
+	 */
+	public int getSizeV() {
+		return sizeV;
+	}
+
+	/**
+	 * @return sizeE The number of (undirected) edges
+	 */
+	public int getSizeE() {
+		return sizeE;
+	}
+
+	/**
+	 * @param  v Id of vertex
+	 * @return key Of the vertex
+	 */
+	public K keyOf(int v) {
+		return keys.get(v);
+	}
+
+	/**
+	 * @param  v Id of vertex
+	 * @return type Of the vertex: 1 depot; -1 station; 0 unknown
+	 */
+	public int type(int v) {
+		return types[v];
+	}
+
+	/**
+	 * @param  v Id of vertex
+	 * @return degree Of the vertex
+	 */
+	public int getDegree(int v) {
+		return offsets[v+1] - offsets[v];
+	}
+
+	/**
+	 * @param  k Key of vertex
+	 * @return id Of the vertex; -1 If not found.
+	 */
+	public int idOf(K k) {
+		Integer id = ids.get(k);
+		return (id == null) ? -1 : id;
+	}
+
+	/**
+	 * @param  queueType VertexQueue.PRIORITY, VertexQueue.DARY or VertexQueue.BUCKET
+	 * @return space A new SearchSpace for all vertices of this view.
+	 */
+	public SearchSpace newSearchSpace(int queueType) {
+		return new SearchSpace(sizeV, queueType, maxWeight);
+	}
+
+	/**
+	 * @return checksum CRC-32 of the types, offsets, targets and weights; identifies the topology and weights of the view.
+	 */
+	public long checksum() {
+		CRC32 crc = new CRC32();
+		crc.update(types);
+		updateCRC(crc, offsets);
+		updateCRC(crc, targets);
+		updateCRC(crc, weights);
+		return crc.getValue();
+	}
+
+	/**
+	 * Add the bytes of an int array, big-endian, to a CRC.
+	 */
+	static void updateCRC(CRC32 crc, int[] array) {
+		byte[] buffer = new byte[4096];
+		int n = 0;
+		for (int x : array) {
+			buffer[n++] = (byte) (x >>> 24);
+			buffer[n++] = (byte) (x >>> 16);
+			buffer[n++] = (byte) (x >>> 8);
+			buffer[n++] = (byte) x;
+			if (n == buffer.length) {
+				crc.update(buffer, 0, n);
+				n = 0;
+			}
+		}
+		crc.update(buffer, 0, n);
+	}
+
+	/**
+	 * @return bytes The approximate heap size of the arrays in this view, excluding the keys.
+	 */
+	public long memoryBytes() {
+		return 4L*(offsets.length + targets.length + weights.length) + types.length;
+	}
+
+
+
+	/**
+	 * Dijkstra's shortest path algorithm, on the arrays.
+	 * @param  source Id of the source vertex.
+	 * @param  aim    Id of the target vertex; the search stops once it is checked.
+	 * @param  space  The search state to use; reset first. Holds the minDistance and previous of each vertex reached.
+	 * @return distance From source to aim; MAX_VALUE If no path.
+	 */
+	public int computePaths(int source, int aim, SearchSpace space) {
+		space.reset();
+		// initialize
+		space.reach(source, 0, -1);
+		space.vertexQ.offer(source, 0);
+
+		while (!space.vertexQ.isEmpty()) {
+			int u = space.vertexQ.poll();
+			space.check(u);
+			// control: method ends at aim-vertex
+			if (u == aim)
+				break;
+			relax(u, space);
+		}
+		return space.dist(aim);
+	}
+
+	/**
+	 * Dijkstra's algorithm run to completion, i.e. the shortest paths from a source to all vertices.
+	 * @param  source Id of the source vertex.
+	 * @param  space  The search state to use; reset first. Holds the minDistance and previous of each vertex reached.
+	 */
+	public void computeAllPaths(int source, SearchSpace space) {
+		space.reset();
+		space.reach(source, 0, -1);
+		space.vertexQ.offer(source, 0);
+
+		while (!space.vertexQ.isEmpty()) {
+			int u = space.vertexQ.poll();
+			space.check(u);
+			relax(u, space);
+		}
+	}
+
+	/**
+	 * Given a source station, perform Dijkstra's search and terminate at the first (closest) depot found.
+	 * @param  station Id of the station.
+	 * @param  space   The search state to use; reset first.
+	 * @return depot Id of the closest depot; -1 If station is isolated from all depots.
+	 */
+	public int closestDepot(int station, SearchSpace space) {
+		space.reset();
+		space.reach(station, 0, -1);
+		space.vertexQ.offer(station, 0);
+
+		while (!space.vertexQ.isEmpty()) {
+			int u = space.vertexQ.poll();
+			space.check(u);
+			// control: compute until the first (closest) depot
+			if (types[u] == 1)
+				return u;
+			relax(u, space);
+		}
+		return -1;
+	}
+
+	/**
+	 * Dijkstra's search seeded with every depot at distance 0, run until all reachable vertices are checked.
+	 * Afterwards the space holds the distance to the closest depot, and previous points one step closer to it.
+	 * @param  space The search state to use; reset first.
+	 */
+	public void growDepotForest(SearchSpace space) {
+		space.reset();
+		// seed all depots
+		for (int v = 0; v < sizeV; v++) {
+			if (types[v] == 1) {
+				space.reach(v, 0, -1);
+				space.vertexQ.offer(v, 0);
+			}
+		}
+
+		while (!space.vertexQ.isEmpty()) {
+			int u = space.vertexQ.poll();
+			space.check(u);
+			relax(u, space);
+		}
+	}
+
+	/**
+	 * Bidirectional Dijkstra's algorithm: search forward from the source and backward from the target, alternating on the side with the smaller queue.
+	 * Whenever an arc reaches a vertex already reached by the other side, a path through it is a candidate; the search stops once the least keys of both queues add up to no less than the best candidate.
+	 * @param  source   Id of the source vertex.
+	 * @param  target   Id of the target vertex.
+	 * @param  forward  Search state from the source; reset first.
+	 * @param  backward Search state from the target; reset first.
+	 * @return meet Id of a vertex on a shortest path, see joinPath(); -1 If no path.
+	 */
+	public int bidirectionalMeet(int source, int target, SearchSpace forward, SearchSpace backward) {
+		forward.reset();
+		backward.reset();
+		forward.reach(source, 0, -1);
+		forward.vertexQ.offer(source, 0);
+		backward.reach(target, 0, -1);
+		backward.vertexQ.offer(target, 0);
+		// best path length found so far, and its meeting vertex
+		int best = Integer.MAX_VALUE;
+		int meet = -1;
+		if (source == target) {
+			best = 0;
+			meet = source;
+		}
+
+		while (!forward.vertexQ.isEmpty() && !backward.vertexQ.isEmpty()) {
+			// control: no shorter path can be found
+			if ((long) forward.vertexQ.minKey() + backward.vertexQ.minKey() >= best)
+				break;
+			// expand the smaller side
+			boolean isForward = forward.vertexQ.size() <= backward.vertexQ.size();
+			SearchSpace space = isForward ? forward : backward;
+			SearchSpace other = isForward ? backward : forward;
+			int u = space.vertexQ.poll();
+			space.check(u);
+
+			int distU = space.dist(u);
+			for (int arc = offsets[u]; arc < offsets[u+1]; arc++) {
+				int v = targets[arc];
+				if (!space.isChecked(v)) {
+					int distanceThru = distU + weights[arc];
+					if (Stats.ENABLED)
+						space.stats.relaxations++;
+					if (distanceThru < space.dist(v)) {
+						space.reach(v, distanceThru, u);
+						space.vertexQ.offer(v, distanceThru);
+					}
+				}
+				// candidate path through v, if the other side has reached it
+				int otherDist = other.dist(v);
+				if (otherDist != Integer.MAX_VALUE && space.dist(v) != Integer.MAX_VALUE) {
+					long candidate = (long) space.dist(v) + otherDist;
+					if (candidate < best) {
+						best = (int) candidate;
+						meet = v;
+					}
+				}
+			}
+		}
+		return meet;
+	}
+
+	/**
+	 * Called after bidirectionalMeet(); join the two halves of the path at the meeting vertex.
+	 * @param  meet     The meeting vertex.
+	 * @param  forward  Search state from the source.
+	 * @param  backward Search state from the target.
+	 * @return path The ids from source to target.
+	 */
+	public int[] joinPath(int meet, SearchSpace forward, SearchSpace backward) {
+		int[] head = forward.trace(meet);
+		int[] tail = backward.trace(meet);
+		int[] path = new int[head.length + tail.length - 1];
+		// head is traced from meet back to source; reverse it
+		for (int i = 0; i < head.length; i++)
+			path[i] = head[head.length-1-i];
+		// tail from meet to target, without meet
+		for (int i = 1; i < tail.length; i++)
+			path[head.length-1+i] = tail[i];
+		return path;
+	}
+
+	/**
+	 * Relax all arcs out of a checked vertex u.
+	 */
+	private void relax(int u, SearchSpace space) {
+		int distU = space.dist(u);
+		for (int arc = offsets[u]; arc < offsets[u+1]; arc++) {
+			int v = targets[arc];
+			if (!space.isChecked(v)) {
+				int distanceThru = distU + weights[arc];
+				if (Stats.ENABLED)
+					space.stats.relaxations++;
+				if (distanceThru < space.dist(v)) {
+					// update dist & previous, decrease-key
+					space.reach(v, distanceThru, u);
+					space.vertexQ.offer(v, distanceThru);
+				}
+			}
+		}
+	}
+
+
+
+	/**
+	 * Called after a search; the keys along the path from a vertex back to the root of the search.
+	 * @param  v     Id of the vertex to start at.
+	 * @param  space The search state.
+	 * @return path The keys from v to the root, in that order.
+	 */
+	public ArrayList<K> traceKeys(int v, SearchSpace space) {
+		ArrayList<K> path = new ArrayList<K>();
+		for (int tmp = v; tmp != -1; tmp = space.previous(tmp))
+			path.add(keys.get(tmp));
+		return path;
+	}
+
+
+}
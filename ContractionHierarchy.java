@@ -0,0 +1,581 @@
+import java.util.*;
+import java.io.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A contraction hierarchy (CH) over a CSRGraph, for fast repeated shortest-path queries on a static graph.
+ * Preprocessing contracts the vertices one by one in order of importance: a contracted vertex is removed, and a shortcut is added between two of its neighbors whenever no witness path avoiding it is as short.
+ * A query is then a bidirectional Dijkstra's search that only goes up the order, and settles a small fraction of the graph; shortcuts are unpacked into the original edges afterwards.
+ * Independent sets of vertices are contracted in rounds, with their witness searches run in parallel.
+ */
+public class ContractionHierarchy<K> {
+	/** "CH01", the header of a saved hierarchy */
+	private static final int MAGIC = 0x43483031;
+	/** Vertices a witness search may check before giving up, i.e. adding the shortcut */
+	private static final int WITNESS_LIMIT = 64;
+	/** The same, for the witness searches that only estimate the priority of a vertex */
+	private static final int ESTIMATE_LIMIT = 8;
+	/** The frozen graph; replaced by a reweighted view in CustomizableHierarchy.customize() */
+	protected CSRGraph<K> graph;
+	protected final int sizeV;
+	/** Contraction order: rank[v] of vertex v, 0 for the first contracted */
+	protected final int[] rank;
+	/** Arcs of v to higher-ranked vertices, at index upOffsets[v] to upOffsets[v+1]-1 */
+	protected final int[] upOffsets, upTargets, upWeights;
+	/** Middle vertex of each upward arc if it is a shortcut; -1 if an original edge */
+	protected final int[] upMiddle;
+	protected final int shortcuts;
+
+	/**
+	 * Constructor.
+	 * Contract all vertices of a graph and build the upward arcs.
+	 * @param  graph The frozen graph.
+	 */
+	ContractionHierarchy(CSRGraph<K> graph) {
+		this.graph = graph;
+		sizeV = graph.getSizeV();
+		Contractor contractor = new Contractor(graph);
+		contractor.run();
+		rank = contractor.rank;
+		shortcuts = contractor.shortcuts;
+		// flatten the upward arcs recorded at contraction
+		upOffsets = new int[sizeV+1];
+		for (int v = 0; v < sizeV; v++)
+			upOffsets[v+1] = upOffsets[v] + contractor.upTargets[v].length;
+		upTargets = new int[upOffsets[sizeV]];
+		upWeights = new int[upOffsets[sizeV]];
+		upMiddle = new int[upOffsets[sizeV]];
+		for (int v = 0; v < sizeV; v++) {
+			System.arraycopy(contractor.upTargets[v], 0, upTargets, upOffsets[v], contractor.upTargets[v].length);
+			System.arraycopy(contractor.upWeights[v], 0, upWeights, upOffsets[v], contractor.upWeights[v].length);
+			System.arraycopy(contractor.upMiddle[v], 0, upMiddle, upOffsets[v], contractor.upMiddle[v].length);
+		}
+	}
+
+	/**
+	 * Constructor, from the arrays of a saved hierarchy, or of a CustomizableHierarchy.
+	 */
+	ContractionHierarchy(CSRGraph<K> graph, int shortcuts, int[] rank, int[] upOffsets, int[] upTargets, int[] upWeights, int[] upMiddle) {
+		this.graph = graph;
+		this.sizeV = graph.getSizeV();
+		this.shortcuts = shortcuts;
+		this.rank = rank;
+		this.upOffsets = upOffsets;
+		this.upTargets = upTargets;
+		this.upWeights = upWeights;
+		this.upMiddle = upMiddle;
+	}
+
+	/**
+	 * @return graph The frozen graph of this hierarchy.
+	 */
+	public CSRGraph<K> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return shortcuts The number of shortcuts added.
+	 */
+	public int getShortcuts() {
+		return shortcuts;
+	}
+
+	/**
+	 * @param  v Id of vertex
+	 * @return rank Of v in the contraction order.
+	 */
+	public int rank(int v) {
+		return rank[v];
+	}
+
+	/**
+	 * @return bytes The heap size of the rank and upward arc arrays.
+	 */
+	public long memoryBytes() {
+		return 4L*(rank.length + upOffsets.length + upTargets.length + upWeights.length + upMiddle.length);
+	}
+
+
+
+	/**
+	 * @return space A new SearchSpace for the query; shortcut weights are unbounded, so always a d-ary heap.
+	 */
+	public SearchSpace newSearchSpace() {
+		return new SearchSpace(sizeV, VertexQueue.DARY, 0);
+	}
+
+	/**
+	 * The CH query: bidirectional Dijkstra's search on the upward arcs only.
+	 * A side stops once its least key is no less than the best path found; the best path meets at its highest-ranked vertex.
+	 * @param  source   Id of the source vertex.
+	 * @param  target   Id of the target vertex.
+	 * @param  forward  Search state from the source, see newSearchSpace(); reset first.
+	 * @param  backward Search state from the target; reset first.
+	 * @return meet Id of the meeting vertex, see unpack(); -1 If no path.
+	 */
+	public int meet(int source, int target, SearchSpace forward, SearchSpace backward) {
+		forward.reset();
+		backward.reset();
+		forward.reach(source, 0, -1);
+		forward.vertexQ.offer(source, 0);
+		backward.reach(target, 0, -1);
+		backward.vertexQ.offer(target, 0);
+		int best = Integer.MAX_VALUE;
+		int meet = -1;
+
+		boolean forwardDone = false, backwardDone = false;
+		while (!forwardDone || !backwardDone) {
+			for (int side = 0; side < 2; side++) {
+				SearchSpace space = (side == 0) ? forward : backward;
+				SearchSpace other = (side == 0) ? backward : forward;
+				// control: this side cannot improve the best path
+				if (space.vertexQ.isEmpty() || space.vertexQ.minKey() >= best) {
+					if (side == 0)
+						forwardDone = true;
+					else
+						backwardDone = true;
+					continue;
+				}
+				int u = space.vertexQ.poll();
+				space.check(u);
+				int distU = space.dist(u);
+				// candidate path through u
+				if (other.dist(u) != Integer.MAX_VALUE && (long) distU + other.dist(u) < best) {
+					best = distU + other.dist(u);
+					meet = u;
+				}
+				// relax upward arcs
+				for (int arc = upOffsets[u]; arc < upOffsets[u+1]; arc++) {
+					int v = upTargets[arc];
+					int distanceThru = distU + upWeights[arc];
+					if (Stats.ENABLED)
+						space.stats.relaxations++;
+					if (distanceThru < space.dist(v)) {
+						space.reach(v, distanceThru, u);
+						space.vertexQ.offer(v, distanceThru);
+					}
+				}
+			}
+		}
+		return meet;
+	}
+
+	/**
+	 * Shortest distance between two vertices.
+	 * @param  source   Id of the source vertex.
+	 * @param  target   Id of the target vertex.
+	 * @param  forward  Search state, see newSearchSpace().
+	 * @param  backward Search state, see newSearchSpace().
+	 * @return distance MAX_VALUE If no path.
+	 */
+	public int distance(int source, int target, SearchSpace forward, SearchSpace backward) {
+		int meet = meet(source, target, forward, backward);
+		return (meet == -1) ? Integer.MAX_VALUE : forward.dist(meet) + backward.dist(meet);
+	}
+
+	/**
+	 * Called after meet(); the path from source to target in original edges, with all shortcuts unpacked.
+	 * @param  meet     The meeting vertex.
+	 * @param  forward  Search state from the source.
+	 * @param  backward Search state from the target.
+	 * @return path The ids from source to target.
+	 */
+	public int[] unpack(int meet, SearchSpace forward, SearchSpace backward) {
+		// the path of upward arcs: source up to meet, then down to target
+		int[] head = forward.trace(meet);
+		int[] tail = backward.trace(meet);
+		int[] upPath = new int[head.length + tail.length - 1];
+		for (int i = 0; i < head.length; i++)
+			upPath[i] = head[head.length-1-i];
+		for (int i = 1; i < tail.length; i++)
+			upPath[head.length-1+i] = tail[i];
+
+		// unpack each arc; a shortcut a-b with middle m becomes a-m, m-b
+		int[] path = new int[upPath.length];
+		int length = 0;
+		int[] stack = new int[16];
+		for (int i = 0; i < upPath.length-1; i++) {
+			int top = 0;
+			stack[top++] = upPath[i];
+			stack[top++] = upPath[i+1];
+			while (top > 0) {
+				int b = stack[--top];
+				int a = stack[--top];
+				int m = upMiddle[arcBetween(a, b)];
+				if (m == -1) {
+					if (length == path.length)
+						path = Arrays.copyOf(path, 2*length);
+					path[length++] = a;
+				}
+				else {
+					if (top + 4 > stack.length)
+						stack = Arrays.copyOf(stack, 2*stack.length);
+					// m-b below a-m, so a-m is unpacked first
+					stack[top++] = m;
+					stack[top++] = b;
+					stack[top++] = a;
+					stack[top++] = m;
+				}
+			}
+		}
+		path = Arrays.copyOf(path, length+1);
+		path[length] = upPath[upPath.length-1];
+		return path;
+	}
+
+	/**
+	 * @return arc The index of the upward arc between two adjacent vertices of the hierarchy.
+	 */
+	private int arcBetween(int a, int b) {
+		int low = (rank[a] < rank[b]) ? a : b;
+		int high = (low == a) ? b : a;
+		for (int arc = upOffsets[low]; arc < upOffsets[low+1]; arc++) {
+			if (upTargets[arc] == high)
+				return arc;
+		}
+		throw new IllegalStateException("No arc between " + a + " and " + b);
+	}
+
+
+
+	/**
+	 * Save the hierarchy to a binary file, to be loaded back with load().
+	 * @param  file Path of the file.
+	 */
+	public void save(String file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(sizeV);
+			out.writeLong(graph.checksum());
+			out.writeInt(shortcuts);
+			writeArray(out, rank);
+			writeArray(out, upOffsets);
+			writeArray(out, upTargets);
+			writeArray(out, upWeights);
+			writeArray(out, upMiddle);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Load a hierarchy saved by save().
+	 * @param  file  Path of the file.
+	 * @param  graph The frozen graph the hierarchy was built from.
+	 * @return hierarchy The loaded hierarchy.
+	 * @throws IOException If the file is not a hierarchy, or was built from another graph.
+	 */
+	public static <K> ContractionHierarchy<K> load(String file, CSRGraph<K> graph) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC)
+				throw new IOException(file + " is not a contraction hierarchy");
+			int sizeV = in.readInt();
+			long checksum = in.readLong();
+			if (sizeV != graph.getSizeV() || checksum != graph.checksum())
+				throw new IOException(file + " was built from another graph");
+			int shortcuts = in.readInt();
+			int[] rank = readArray(in);
+			int[] upOffsets = readArray(in);
+			int[] upTargets = readArray(in);
+			int[] upWeights = readArray(in);
+			int[] upMiddle = readArray(in);
+			return new ContractionHierarchy<K>(graph, shortcuts, rank, upOffsets, upTargets, upWeights, upMiddle);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private static void writeArray(DataOutputStream out, int[] array) throws IOException {
+		out.writeInt(array.length);
+		for (int x : array)
+			out.writeInt(x);
+	}
+
+	private static int[] readArray(DataInputStream in) throws IOException {
+		int[] array = new int[in.readInt()];
+		for (int i = 0; i < array.length; i++)
+			array[i] = in.readInt();
+		return array;
+	}
+
+
+
+
+	/**
+	 * The preprocessing: contracts a mutable copy of the graph.
+	 */
+	private static class Contractor {
+		final int sizeV;
+		/** The remaining graph: neighbors, weights and shortcut middles of each vertex; only the first deg[v] are used */
+		int[][] nbr, wgt, mid;
+		int[] deg;
+		boolean[] contracted;
+		/** The independent set of the current round; witness paths may not go through any of them */
+		boolean[] inRound;
+		/** Priority of each vertex: lower is contracted earlier */
+		int[] priority;
+		/** Contracted neighbors of each vertex */
+		int[] deleted;
+		/** Results: rank, upward arcs and shortcut count */
+		int[] rank;
+		int[][] upTargets, upWeights, upMiddle;
+		int shortcuts;
+		final ThreadLocal<Witness> witness;
+
+		Contractor(CSRGraph<?> graph) {
+			sizeV = graph.getSizeV();
+			nbr = new int[sizeV][];
+			wgt = new int[sizeV][];
+			mid = new int[sizeV][];
+			deg = new int[sizeV];
+			for (int v = 0; v < sizeV; v++) {
+				int degree = graph.getDegree(v);
+				nbr[v] = new int[Math.max(degree, 1)];
+				wgt[v] = new int[nbr[v].length];
+				mid[v] = new int[nbr[v].length];
+				for (int arc = graph.offsets[v]; arc < graph.offsets[v+1]; arc++) {
+					// no self-loops in a hierarchy
+					if (graph.targets[arc] != v)
+						addArc(v, graph.targets[arc], graph.weights[arc], -1);
+				}
+			}
+			contracted = new boolean[sizeV];
+			inRound = new boolean[sizeV];
+			priority = new int[sizeV];
+			deleted = new int[sizeV];
+			rank = new int[sizeV];
+			upTargets = new int[sizeV][];
+			upWeights = new int[sizeV][];
+			upMiddle = new int[sizeV][];
+			witness = ThreadLocal.withInitial(() -> new Witness(sizeV));
+		}
+
+		/**
+		 * Contract all vertices, in rounds of independent sets.
+		 */
+		void run() {
+			int[] remaining = new int[sizeV];
+			for (int v = 0; v < sizeV; v++)
+				remaining[v] = v;
+			Arrays.stream(remaining).parallel().forEach(v -> updatePriority(v));
+
+			int nextRank = 0;
+			while (remaining.length > 0) {
+				// vertices of least priority among their neighbors; no two are adjacent
+				int[] set = Arrays.stream(remaining).parallel().filter(v -> isLocalMin(v)).toArray();
+				// find their shortcuts in parallel, on the unchanged graph
+				// witnesses avoid the whole set: two of them may otherwise each be the witness of the other's shortcut
+				for (int v : set)
+					inRound[v] = true;
+				int[][] found = new int[set.length][];
+				Arrays.stream(indices(set.length)).parallel().forEach(i -> found[i] = simulate(set[i], true));
+				for (int v : set)
+					inRound[v] = false;
+
+				// then contract them one by one
+				boolean[] touched = new boolean[sizeV];
+				for (int i = 0; i < set.length; i++) {
+					int v = set[i];
+					rank[v] = nextRank++;
+					contracted[v] = true;
+					// all remaining neighbors rank higher
+					upTargets[v] = Arrays.copyOf(nbr[v], deg[v]);
+					upWeights[v] = Arrays.copyOf(wgt[v], deg[v]);
+					upMiddle[v] = Arrays.copyOf(mid[v], deg[v]);
+					for (int j = 0; j < deg[v]; j++) {
+						int u = nbr[v][j];
+						removeArc(u, v);
+						deleted[u]++;
+						touched[u] = true;
+					}
+					int[] triples = found[i];
+					for (int j = 0; j < triples.length; j += 3) {
+						addArc(triples[j], triples[j+1], triples[j+2], v);
+						addArc(triples[j+1], triples[j], triples[j+2], v);
+						shortcuts++;
+					}
+				}
+
+				remaining = Arrays.stream(remaining).filter(v -> !contracted[v]).toArray();
+				// neighbors of the contracted changed; update their priority
+				int[] changed = Arrays.stream(remaining).filter(v -> touched[v]).toArray();
+				Arrays.stream(changed).parallel().forEach(v -> updatePriority(v));
+			}
+		}
+
+		private static int[] indices(int n) {
+			int[] index = new int[n];
+			for (int i = 0; i < n; i++)
+				index[i] = i;
+			return index;
+		}
+
+		/**
+		 * @return true If v has the least (priority, id) among its remaining neighbors.
+		 */
+		boolean isLocalMin(int v) {
+			for (int j = 0; j < deg[v]; j++) {
+				int u = nbr[v][j];
+				if (priority[u] < priority[v] || (priority[u] == priority[v] && u < v))
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Priority by edge difference (shortcuts added less edges removed) and contracted neighbors, to spread contraction evenly.
+		 */
+		void updatePriority(int v) {
+			int added = simulate(v, false).length / 3;
+			priority[v] = 2*(added - deg[v]) + deleted[v];
+		}
+
+		/**
+		 * Find the shortcuts needed if v is contracted now.
+		 * For each neighbor u, a witness search from u avoiding v; a shortcut u-w is needed if w is not reached within the length through v.
+		 * @param  v       The vertex.
+		 * @param  collect If true, return the shortcuts; if false, only their count matters.
+		 * @return triples Of each shortcut: u, w, weight; if not collect, an array of 3 times the count.
+		 */
+		int[] simulate(int v, boolean collect) {
+			Witness search = witness.get();
+			int[] triples = new int[collect ? 3*8 : 0];
+			int count = 0;
+			for (int i = 0; i < deg[v]; i++) {
+				int u = nbr[v][i];
+				int limit = -1;
+				for (int j = i+1; j < deg[v]; j++)
+					limit = Math.max(limit, wgt[v][i] + wgt[v][j]);
+				if (limit < 0)
+					continue;
+				search.search(this, u, v, limit, nbr[v], i+1, deg[v], collect ? WITNESS_LIMIT : ESTIMATE_LIMIT);
+				for (int j = i+1; j < deg[v]; j++) {
+					int w = nbr[v][j];
+					int via = wgt[v][i] + wgt[v][j];
+					if (search.dist(w) > via) {
+						if (collect) {
+							if (3*count + 3 > triples.length)
+								triples = Arrays.copyOf(triples, 2*triples.length);
+							triples[3*count] = u;
+							triples[3*count+1] = w;
+							triples[3*count+2] = via;
+						}
+						count++;
+					}
+				}
+			}
+			return collect ? Arrays.copyOf(triples, 3*count) : new int[3*count];
+		}
+
+		/**
+		 * Add an arc a-b to the remaining graph, or shorten the existing one.
+		 */
+		void addArc(int a, int b, int weight, int middle) {
+			for (int j = 0; j < deg[a]; j++) {
+				if (nbr[a][j] == b) {
+					if (weight < wgt[a][j]) {
+						wgt[a][j] = weight;
+						mid[a][j] = middle;
+					}
+					return;
+				}
+			}
+			if (deg[a] == nbr[a].length) {
+				int length = 2*nbr[a].length;
+				nbr[a] = Arrays.copyOf(nbr[a], length);
+				wgt[a] = Arrays.copyOf(wgt[a], length);
+				mid[a] = Arrays.copyOf(mid[a], length);
+			}
+			nbr[a][deg[a]] = b;
+			wgt[a][deg[a]] = weight;
+			mid[a][deg[a]] = middle;
+			deg[a]++;
+		}
+
+		/**
+		 * Remove the arc a-b from the remaining graph, by moving the last arc of a in its place.
+		 */
+		void removeArc(int a, int b) {
+			for (int j = 0; j < deg[a]; j++) {
+				if (nbr[a][j] == b) {
+					int last = --deg[a];
+					nbr[a][j] = nbr[a][last];
+					wgt[a][j] = wgt[a][last];
+					mid[a][j] = mid[a][last];
+					return;
+				}
+			}
+		}
+	}
+
+
+
+
+	/**
+	 * A bounded Dijkstra's search on the remaining graph of a Contractor; one per thread.
+	 */
+	private static class Witness {
+		private final int[] dist, stamp, target;
+		private final DaryHeap heap;
+		private int epoch;
+
+		Witness(int sizeV) {
+			dist = new int[sizeV];
+			stamp = new int[sizeV];
+			target = new int[sizeV];
+			heap = new DaryHeap(sizeV, 4);
+		}
+
+		/**
+		 * Search from source, skipping one vertex and those of the round, until keys exceed limit, maxChecked vertices are checked, or all targets are checked.
+		 * The targets are targets[from] to targets[to-1].
+		 */
+		void search(Contractor graph, int source, int skip, int limit, int[] targets, int from, int to, int maxChecked) {
+			epoch++;
+			if (epoch == Integer.MAX_VALUE) {
+				Arrays.fill(stamp, 0);
+				Arrays.fill(target, 0);
+				epoch = 1;
+			}
+			heap.clear();
+			stamp[source] = epoch;
+			dist[source] = 0;
+			heap.offer(source, 0);
+			for (int j = from; j < to; j++)
+				target[targets[j]] = epoch;
+			int remaining = to - from;
+			int checked = 0;
+			while (!heap.isEmpty() && heap.minKey() <= limit && checked < maxChecked) {
+				int u = heap.poll();
+				checked++;
+				// control: every target has its final distance
+				if (target[u] == epoch && --remaining == 0)
+					break;
+				for (int j = 0; j < graph.deg[u]; j++) {
+					int v = graph.nbr[u][j];
+					if (v == skip || graph.inRound[v])
+						continue;
+					int distanceThru = dist[u] + graph.wgt[u][j];
+					if (distanceThru < dist(v)) {
+						stamp[v] = epoch;
+						dist[v] = distanceThru;
+						heap.offer(v, distanceThru);
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return distance Of v found by the last search; MAX_VALUE if not reached.
+		 */
+		int dist(int v) {
+			return stamp[v] == epoch ? dist[v] : Integer.MAX_VALUE;
+		}
+	}
+}
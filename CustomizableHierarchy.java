@@ -0,0 +1,259 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A customizable contraction hierarchy (CCH): a contraction hierarchy whose preprocessing is split into a metric-independent part and a customization by the weights.
+ * The order and shortcuts depend on the topology only: vertices are eliminated by least degree, and all neighbors of an eliminated vertex are joined, witnesses or not.
+ * customize() then computes the weight of every upward arc from the weights of the frozen view; it runs level by level, each level in parallel, and takes a fraction of the preprocessing time.
+ * Queries and unpacking are those of ContractionHierarchy.
+ */
+public class CustomizableHierarchy<K> extends ContractionHierarchy<K> {
+	/** The upward arc of each arc of the frozen view, from its lower-ranked end; -1 for the other direction and self-loops */
+	protected final int[] inputArc;
+	/** Lower triangles of upward arc a-b: pairs of arcs v-a, v-b at index 2*triOffsets[arc] to 2*triOffsets[arc+1]-1 */
+	protected final int[] triOffsets, triangles;
+	/** Vertices by level: a vertex is one level above its highest lower neighbor; at index levelOffsets[l] to levelOffsets[l+1]-1 */
+	protected final int[] levelOffsets, levelVertices;
+
+	/**
+	 * Constructor.
+	 * Eliminate the vertices of a graph and build the triangles, then customize by its weights.
+	 * @param  graph The frozen graph.
+	 */
+	CustomizableHierarchy(CSRGraph<K> graph) {
+		this(graph, new Elimination(graph));
+	}
+
+	private CustomizableHierarchy(CSRGraph<K> graph, Elimination elimination) {
+		super(graph, elimination.shortcuts, elimination.rank, elimination.upOffsets, elimination.upTargets,
+			new int[elimination.upTargets.length], new int[elimination.upTargets.length]);
+		int arcs = upTargets.length;
+
+		// the upward arc of each arc of the view
+		inputArc = new int[graph.offsets[sizeV]];
+		for (int u = 0; u < sizeV; u++) {
+			for (int arc = graph.offsets[u]; arc < graph.offsets[u+1]; arc++) {
+				int w = graph.targets[arc];
+				inputArc[arc] = (rank[u] < rank[w]) ? upArc(u, w) : -1;
+			}
+		}
+
+		// lower triangles: each pair a, b of upward neighbors of v, with a lower, closes arc a-b
+		triOffsets = new int[arcs+1];
+		for (int v = 0; v < sizeV; v++) {
+			for (int i = upOffsets[v]; i < upOffsets[v+1]; i++) {
+				for (int j = upOffsets[v]; j < upOffsets[v+1]; j++) {
+					if (rank[upTargets[i]] < rank[upTargets[j]])
+						triOffsets[upArc(upTargets[i], upTargets[j]) + 1]++;
+				}
+			}
+		}
+		for (int arc = 0; arc < arcs; arc++)
+			triOffsets[arc+1] += triOffsets[arc];
+		triangles = new int[2*triOffsets[arcs]];
+		int[] next = Arrays.copyOf(triOffsets, arcs);
+		for (int v = 0; v < sizeV; v++) {
+			for (int i = upOffsets[v]; i < upOffsets[v+1]; i++) {
+				for (int j = upOffsets[v]; j < upOffsets[v+1]; j++) {
+					if (rank[upTargets[i]] < rank[upTargets[j]]) {
+						int t = next[upArc(upTargets[i], upTargets[j])]++;
+						triangles[2*t] = i;
+						triangles[2*t+1] = j;
+					}
+				}
+			}
+		}
+
+		// levels, in order of rank
+		int[] byRank = new int[sizeV];
+		for (int v = 0; v < sizeV; v++)
+			byRank[rank[v]] = v;
+		int[] level = new int[sizeV];
+		int levels = (sizeV == 0) ? 0 : 1;
+		for (int v : byRank) {
+			for (int arc = upOffsets[v]; arc < upOffsets[v+1]; arc++) {
+				int w = upTargets[arc];
+				level[w] = Math.max(level[w], level[v] + 1);
+				levels = Math.max(levels, level[w] + 1);
+			}
+		}
+		levelOffsets = new int[levels+1];
+		for (int v = 0; v < sizeV; v++)
+			levelOffsets[level[v]+1]++;
+		for (int l = 0; l < levels; l++)
+			levelOffsets[l+1] += levelOffsets[l];
+		levelVertices = new int[sizeV];
+		next = Arrays.copyOf(levelOffsets, levels);
+		for (int v = 0; v < sizeV; v++)
+			levelVertices[next[level[v]]++] = v;
+
+		customize(graph);
+	}
+
+	/**
+	 * @return arc The index of the upward arc from a to b, which ranks higher; -1 If none.
+	 */
+	private int upArc(int a, int b) {
+		int arc = Arrays.binarySearch(upTargets, upOffsets[a], upOffsets[a+1], b);
+		return (arc < 0) ? -1 : arc;
+	}
+
+	/**
+	 * @return levels The number of levels, i.e. of sequential steps of customize().
+	 */
+	public int levels() {
+		return levelOffsets.length - 1;
+	}
+
+	/**
+	 * @return bytes The heap size of the hierarchy, with the triangles and levels kept for customization.
+	 */
+	public long memoryBytes() {
+		return super.memoryBytes() + 4L*(inputArc.length + triOffsets.length + triangles.length + levelOffsets.length + levelVertices.length);
+	}
+
+	/**
+	 * Customization: recompute the weights and middles of all upward arcs from the weights of a frozen view.
+	 * First each arc takes the weight of its edge; then, lowest level first, each arc a-b takes the shortest of its lower triangles v-a, v-b.
+	 * The arcs of a vertex only depend on arcs of lower levels, so the vertices of a level are done in parallel.
+	 * @param  view A frozen view of the same graph, with the same vertices and edges but possibly other weights.
+	 * @throws IllegalArgumentException If the view has other vertices or edges.
+	 */
+	public void customize(CSRGraph<K> view) {
+		if (view.getSizeV() != sizeV || !Arrays.equals(view.offsets, graph.offsets) || !Arrays.equals(view.targets, graph.targets))
+			throw new IllegalArgumentException("Cannot customize by a graph of another topology");
+		graph = view;
+		for (int l = 0; l < levels(); l++) {
+			IntStream.range(levelOffsets[l], levelOffsets[l+1]).parallel().forEach(i -> customizeVertex(levelVertices[i], view.weights));
+		}
+	}
+
+	/**
+	 * Set the weights and middles of the upward arcs of one vertex; only reads arcs of lower vertices.
+	 */
+	private void customizeVertex(int a, int[] weights) {
+		for (int arc = upOffsets[a]; arc < upOffsets[a+1]; arc++) {
+			upWeights[arc] = Integer.MAX_VALUE;
+			upMiddle[arc] = -1;
+		}
+		// the edges; of parallel ones, the shortest
+		for (int arc = graph.offsets[a]; arc < graph.offsets[a+1]; arc++) {
+			int up = inputArc[arc];
+			if (up != -1 && weights[arc] < upWeights[up])
+				upWeights[up] = weights[arc];
+		}
+		// the lower triangles
+		for (int arc = upOffsets[a]; arc < upOffsets[a+1]; arc++) {
+			for (int t = triOffsets[arc]; t < triOffsets[arc+1]; t++) {
+				int va = triangles[2*t], vb = triangles[2*t+1];
+				long through = (long) upWeights[va] + upWeights[vb];
+				if (through < upWeights[arc]) {
+					upWeights[arc] = (int) through;
+					// the lower vertex v, owner of arc v-a
+					upMiddle[arc] = lowerEnd(va);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return v The vertex an upward arc starts from.
+	 */
+	private int lowerEnd(int arc) {
+		int low = 0, high = sizeV;
+		// the last v with upOffsets[v] <= arc
+		while (high - low > 1) {
+			int mid = (low + high) >>> 1;
+			if (upOffsets[mid] <= arc)
+				low = mid;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+
+
+
+	/**
+	 * The metric-independent preprocessing: eliminates the vertices of the topology by least degree.
+	 */
+	private static class Elimination {
+		int[] rank;
+		int[] upOffsets, upTargets;
+		int shortcuts;
+
+		Elimination(CSRGraph<?> graph) {
+			int sizeV = graph.getSizeV();
+			// the remaining graph, without parallel edges or self-loops
+			int[][] nbr = new int[sizeV][];
+			int[] deg = new int[sizeV];
+			int[] mark = new int[sizeV];
+			Arrays.fill(mark, -1);
+			for (int v = 0; v < sizeV; v++) {
+				nbr[v] = new int[Math.max(graph.getDegree(v), 1)];
+				mark[v] = v;
+				for (int arc = graph.offsets[v]; arc < graph.offsets[v+1]; arc++) {
+					int w = graph.targets[arc];
+					if (mark[w] != v) {
+						mark[w] = v;
+						nbr[v][deg[v]++] = w;
+					}
+				}
+			}
+			Arrays.fill(mark, -1);
+
+			rank = new int[sizeV];
+			boolean[] eliminated = new boolean[sizeV];
+			int[][] up = new int[sizeV][];
+			// least degree first, ties by id; entries of an outdated degree are skipped
+			PriorityQueue<Long> queue = new PriorityQueue<Long>();
+			for (int v = 0; v < sizeV; v++)
+				queue.add(((long) deg[v] << 32) | v);
+			int nextRank = 0;
+			while (!queue.isEmpty()) {
+				long entry = queue.poll();
+				int v = (int) entry;
+				if (eliminated[v] || (int) (entry >>> 32) != deg[v])
+					continue;
+				eliminated[v] = true;
+				rank[v] = nextRank++;
+				up[v] = Arrays.copyOf(nbr[v], deg[v]);
+				Arrays.sort(up[v]);
+				// remove v, and join its neighbors into a clique
+				for (int i = 0; i < deg[v]; i++) {
+					int u = nbr[v][i];
+					for (int j = 0; j < deg[u]; j++)
+						mark[nbr[u][j]] = u;
+					for (int j = 0; j < deg[u]; j++) {
+						if (nbr[u][j] == v) {
+							nbr[u][j] = nbr[u][--deg[u]];
+							break;
+						}
+					}
+					for (int j = 0; j < deg[v]; j++) {
+						int w = nbr[v][j];
+						if (w != u && mark[w] != u) {
+							if (deg[u] == nbr[u].length)
+								nbr[u] = Arrays.copyOf(nbr[u], 2*nbr[u].length);
+							nbr[u][deg[u]++] = w;
+							if (u < w)
+								shortcuts++;
+						}
+					}
+					queue.add(((long) deg[u] << 32) | u);
+				}
+			}
+
+			upOffsets = new int[sizeV+1];
+			for (int v = 0; v < sizeV; v++)
+				upOffsets[v+1] = upOffsets[v] + up[v].length;
+			upTargets = new int[upOffsets[sizeV]];
+			for (int v = 0; v < sizeV; v++)
+				System.arraycopy(up[v], 0, upTargets, upOffsets[v], up[v].length);
+		}
+	}
+}
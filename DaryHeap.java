@@ -0,0 +1,136 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * An indexed d-ary min-heap of vertex ids.
+ * The position of each vertex in the heap is kept in an array, so decrease-key is a sift-up in O(log n), with no search.
+ * A larger arity d makes the heap shallower, i.e. cheaper decrease-keys, for a costlier poll.
+ */
+public class DaryHeap implements VertexQueue {
+	private final int d;
+	/** The heap, of vertex ids */
+	private final int[] heap;
+	/** Position of each vertex in heap; -1 if not in the queue */
+	private final int[] pos;
+	/** Key of each vertex */
+	private final int[] key;
+	private int size;
+
+	/**
+	 * Constructor.
+	 * @param  capacity The number of vertices, i.e. ids are 0 to capacity-1.
+	 * @param  d        The arity, at least 2.
+	 */
+	DaryHeap(int capacity, int d) {
+		if (d < 2)
+			throw new IllegalArgumentException("Arity must be at least 2");
+		this.d = d;
+		heap = new int[capacity];
+		pos = new int[capacity];
+		key = new int[capacity];
+		Arrays.fill(pos, -1);
+	}
+
+	public void offer(int v, int newKey) {
+		if (pos[v] == -1) {
+			// insert at the bottom
+			heap[size] = v;
+			pos[v] = size;
+			key[v] = newKey;
+			siftUp(size++);
+		}
+		else if (newKey < key[v]) {
+			// decrease-key
+			key[v] = newKey;
+			siftUp(pos[v]);
+		}
+		else {
+			key[v] = newKey;
+			siftDown(pos[v]);
+		}
+	}
+
+	public int poll() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		int top = heap[0];
+		pos[top] = -1;
+		size--;
+		// move the last vertex to the root, sift down
+		if (size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			pos[last] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	public int minKey() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		return key[heap[0]];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			pos[heap[i]] = -1;
+		size = 0;
+	}
+
+	/**
+	 * Move the vertex at index i up until its parent is no larger.
+	 */
+	private void siftUp(int i) {
+		int v = heap[i];
+		int k = key[v];
+		while (i > 0) {
+			int parent = (i-1)/d;
+			int p = heap[parent];
+			if (key[p] <= k)
+				break;
+			heap[i] = p;
+			pos[p] = i;
+			i = parent;
+		}
+		heap[i] = v;
+		pos[v] = i;
+	}
+
+	/**
+	 * Move the vertex at index i down until no child is smaller.
+	 */
+	private void siftDown(int i) {
+		int v = heap[i];
+		int k = key[v];
+		while (true) {
+			int first = d*i + 1;
+			if (first >= size)
+				break;
+			// find the smallest child
+			int last = Math.min(first + d, size);
+			int min = first;
+			for (int c = first+1; c < last; c++) {
+				if (key[heap[c]] < key[heap[min]])
+					min = c;
+			}
+			if (key[heap[min]] >= k)
+				break;
+			heap[i] = heap[min];
+			pos[heap[i]] = i;
+			i = min;
+		}
+		heap[i] = v;
+		pos[v] = i;
+	}
+}
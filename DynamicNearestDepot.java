@@ -0,0 +1,310 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * The shortest-path forest from all depots of a graph, kept up to date as edges are added, removed or reweighted through this class.
+ * Each vertex has a label, the distance to its nearest depot and that depot's id, compared in that order so ties go to the lesser depot id; and a previous vertex one step closer to the depot.
+ * A shorter edge relabels only the vertices it brings closer, by a Dijkstra's search seeded at its ends.
+ * A longer or removed edge of the forest detaches the subtree below it; only that subtree is reconnected from its neighbors, by the same search.
+ * The labels then equal those of a full recompute; changes made to the graph directly, not through this class, are caught by its version and lead to a full recompute.
+ */
+public class DynamicNearestDepot<K, E> {
+	private static final long UNREACHED = Long.MAX_VALUE;
+	protected final Graph<K, E> graph;
+	/** Label of each vertex by id: distance in the high 32 bits, depot id in the low 32; UNREACHED if no depot reaches it */
+	protected long[] label;
+	/** Id of the vertex one step closer to the depot; -1 for depots and unreached vertices */
+	protected int[] previous;
+	/** The graph version the forest is valid for */
+	protected int version;
+	/** The number of vertices relabeled by the last change */
+	protected int updated;
+	/** Vertices to relax, as label and id; entries of an outdated label are skipped */
+	private final PriorityQueue<long[]> queue;
+
+	/**
+	 * Constructor.
+	 * Grows the forest from all depots, i.e. vertices of type 1.
+	 * @param  graph The graph; change it through this class to keep the forest up to date incrementally.
+	 */
+	DynamicNearestDepot(Graph<K, E> graph) {
+		this.graph = graph;
+		queue = new PriorityQueue<long[]>(11, (a, b) -> Long.compare(a[0], b[0]));
+		recompute();
+	}
+
+	/**
+	 * Grow the whole forest again, from all depots.
+	 */
+	public void recompute() {
+		int sizeV = graph.getSizeV();
+		label = new long[sizeV];
+		previous = new int[sizeV];
+		Arrays.fill(label, UNREACHED);
+		Arrays.fill(previous, -1);
+		queue.clear();
+		for (int v = 0; v < sizeV; v++) {
+			if (isDepot(v)) {
+				label[v] = v;
+				queue.add(new long[] {label[v], v});
+			}
+		}
+		updated = propagate();
+		version = graph.version;
+	}
+
+	/**
+	 * Recompute if the graph was changed other than through this class.
+	 */
+	private void sync() {
+		if (graph.version != version)
+			recompute();
+	}
+
+	private boolean isDepot(int v) {
+		return graph.nodeAt(v).type() == 1;
+	}
+
+	/**
+	 * @return label Of a path to v through u by an edge of weight w; UNREACHED If u is unreached.
+	 */
+	private long through(int u, int w) {
+		if (label[u] == UNREACHED)
+			return UNREACHED;
+		long distance = (label[u] >>> 32) + w;
+		if (distance >= Integer.MAX_VALUE)
+			return UNREACHED;
+		return (distance << 32) | (label[u] & 0xffffffffL);
+	}
+
+	/**
+	 * Relabel v through u if that is less; a depot keeps its own label.
+	 */
+	private void offer(int v, int u, int w) {
+		long candidate = through(u, w);
+		if (candidate < label[v] && !isDepot(v)) {
+			label[v] = candidate;
+			previous[v] = u;
+			queue.add(new long[] {candidate, v});
+		}
+	}
+
+	/**
+	 * Dijkstra's search on labels from the queued vertices, until the queue is empty.
+	 * @return count The number of vertices relaxed.
+	 */
+	private int propagate() {
+		int count = 0;
+		while (!queue.isEmpty()) {
+			long[] top = queue.poll();
+			int u = (int) top[1];
+			// control: outdated entry
+			if (top[0] != label[u])
+				continue;
+			count++;
+			for (Edge<K, E> tmp : graph.nodeAt(u).adj)
+				offer(tmp.target.getId(), u, tmp.weight);
+		}
+		return count;
+	}
+
+	/**
+	 * Repair after the edge a-b became shorter, or was added: relabel from its ends.
+	 */
+	private void decrease(int a, int b, int w) {
+		offer(b, a, w);
+		offer(a, b, w);
+		updated = propagate();
+	}
+
+	/**
+	 * Repair after the edge a-b became longer, or was removed: if in the forest, detach the subtree below it and reconnect it.
+	 */
+	private void increase(int a, int b) {
+		int child = (previous[b] == a) ? b : (previous[a] == b) ? a : -1;
+		// control: not in the forest, no label changes
+		if (child == -1) {
+			updated = 0;
+			return;
+		}
+		int[] subtree = subtree(child);
+		for (int v : subtree) {
+			label[v] = UNREACHED;
+			previous[v] = -1;
+		}
+		// shortest way into the subtree from each neighbor; the search then settles it
+		for (int v : subtree) {
+			for (Edge<K, E> tmp : graph.nodeAt(v).adj)
+				offer(v, tmp.target.getId(), tmp.weight);
+		}
+		propagate();
+		updated = subtree.length;
+	}
+
+	/**
+	 * @return subtree Ids of root and all vertices whose previous leads to it.
+	 */
+	private int[] subtree(int root) {
+		int[] subtree = new int[16];
+		subtree[0] = root;
+		int size = 1;
+		// breadth-first; children are the neighbors whose previous is the vertex
+		for (int i = 0; i < size; i++) {
+			int u = subtree[i];
+			for (Edge<K, E> tmp : graph.nodeAt(u).adj) {
+				int v = tmp.target.getId();
+				if (previous[v] == u) {
+					if (size == subtree.length)
+						subtree = Arrays.copyOf(subtree, 2*size);
+					subtree[size++] = v;
+				}
+			}
+		}
+		return Arrays.copyOf(subtree, size);
+	}
+
+
+
+
+	/**
+	 * Add a vertex to the graph; a depot is its own nearest depot.
+	 * @param  k    Key of the vertex.
+	 * @param  e    Element of the vertex.
+	 * @param  type Of the vertex: 1: depot; -1: station; 0 unknown.
+	 * @return true If successful; false otherwise(if duplicates found).
+	 */
+	public boolean addNode(K k, E e, int type) {
+		sync();
+		if (!graph.addNode(k, e, type))
+			return false;
+		int v = graph.getSizeV() - 1;
+		label = Arrays.copyOf(label, v+1);
+		previous = Arrays.copyOf(previous, v+1);
+		label[v] = (type == 1) ? v : UNREACHED;
+		previous[v] = -1;
+		version = graph.version;
+		updated = 1;
+		return true;
+	}
+
+	/**
+	 * Add an edge to the graph, or shorten an existing one, see Graph.addEdge(); then relabel the vertices it brings closer.
+	 * @param  k1 Key of one vertex.
+	 * @param  k2 Key of the other vertex.
+	 * @param  w  Weight of the edge.
+	 * @return true If added or shortened; false otherwise.
+	 */
+	public boolean addEdge(K k1, K k2, int w) {
+		sync();
+		updated = 0;
+		if (!graph.addEdge(k1, k2, w))
+			return false;
+		version = graph.version;
+		decrease(graph.getNode(k1).getId(), graph.getNode(k2).getId(), w);
+		return true;
+	}
+
+	/**
+	 * Set the weight of an existing edge, see Graph.setWeight(); then repair the forest.
+	 * @param  k1 Key of one vertex.
+	 * @param  k2 Key of the other vertex.
+	 * @param  w  The new weight.
+	 * @return true If the edge exists; false otherwise.
+	 */
+	public boolean setWeight(K k1, K k2, int w) {
+		sync();
+		updated = 0;
+		if (graph.getNode(k1) == null || graph.getNode(k2) == null)
+			return false;
+		int old = graph.getEdge(k1, k2);
+		if (!graph.setWeight(k1, k2, w))
+			return false;
+		version = graph.version;
+		int a = graph.getNode(k1).getId(), b = graph.getNode(k2).getId();
+		if (w < old)
+			decrease(a, b, w);
+		else if (w > old)
+			increase(a, b);
+		return true;
+	}
+
+	/**
+	 * Remove an edge, see Graph.removeEdge(); then repair the forest.
+	 * @param  k1 Key of one vertex.
+	 * @param  k2 Key of the other vertex.
+	 * @return true If removed; false If no such edge.
+	 */
+	public boolean removeEdge(K k1, K k2) {
+		sync();
+		updated = 0;
+		if (!graph.removeEdge(k1, k2))
+			return false;
+		version = graph.version;
+		increase(graph.getNode(k1).getId(), graph.getNode(k2).getId());
+		return true;
+	}
+
+	/**
+	 * @return updated The number of vertices relabeled by the last change; the whole graph after a recompute.
+	 */
+	public int lastUpdated() {
+		return updated;
+	}
+
+
+
+
+	/**
+	 * @param  k Key of a vertex.
+	 * @return depot The key of its nearest depot; null If none reachable, or no such vertex.
+	 */
+	public K depotOf(K k) {
+		sync();
+		Node<K, E> node = graph.getNode(k);
+		if (node == null || label[node.getId()] == UNREACHED)
+			return null;
+		return graph.nodeAt((int) label[node.getId()]).getKey();
+	}
+
+	/**
+	 * @param  k Key of a vertex.
+	 * @return distance To its nearest depot; MAX_VALUE If none reachable, or no such vertex.
+	 */
+	public int distance(K k) {
+		sync();
+		Node<K, E> node = graph.getNode(k);
+		if (node == null || label[node.getId()] == UNREACHED)
+			return Integer.MAX_VALUE;
+		return (int) (label[node.getId()] >>> 32);
+	}
+
+	/**
+	 * @param  k Key of a vertex.
+	 * @return previous The key of the vertex one step closer to the nearest depot; null For a depot, or if none reachable.
+	 */
+	public K previous(K k) {
+		sync();
+		Node<K, E> node = graph.getNode(k);
+		if (node == null || previous[node.getId()] == -1)
+			return null;
+		return graph.nodeAt(previous[node.getId()]).getKey();
+	}
+
+	/**
+	 * The path from a vertex to its nearest depot, as NNGraph.pathFromStation().
+	 * @param  k Key of a vertex.
+	 * @return path The keys from the vertex to the depot; empty If no depot is reachable.
+	 */
+	public ArrayList<K> pathToDepot(K k) {
+		sync();
+		ArrayList<K> path = new ArrayList<K>();
+		Node<K, E> node = graph.getNode(k);
+		if (node == null || label[node.getId()] == UNREACHED)
+			return path;
+		for (int v = node.getId(); v != -1; v = previous[v])
+			path.add(graph.nodeAt(v).getKey());
+		return path;
+	}
+}
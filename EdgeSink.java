@@ -0,0 +1,15 @@
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A consumer of edges as they are parsed, so they need not be held in a list; see Importer.importEdges() and MappedParser.parseEdges().
+ */
+public interface EdgeSink {
+	/**
+	 * Take an edge.
+	 * @param k1     Key of one node.
+	 * @param k2     Key of the other node.
+	 * @param weight Of the edge.
+	 */
+	void edge(int k1, int k2, int weight);
+}
@@ -1,4 +1,5 @@
 import java.util.*;
+import java.io.*;
 
 /**
  * @author Wah Loon Keng
@@ -9,11 +10,51 @@ import java.util.*;
  * This can easily be modified into a directed graph by changing the addEdge() method.
  */
 public class Graph<K, E> {
+	/** Search modes of findShortestPath(): Dijkstra's algorithm from the source; or bidirectional, A* with landmarks, or contraction hierarchy, on the frozen view */
+	public static final int DIJKSTRA = 0, BIDIRECTIONAL = 1, ALT = 2, CH = 3;
 	protected int sizeE;
 	protected int pathLength = Integer.MAX_VALUE;
 	protected ArrayList<Node<K,E>> pathFound;
 	/** The adjacency matrix, entry = weight of edge */
 	protected LinkedList<Node<K, E>> listV;
+	/** The key index of all vertices, for constant-time getNode() */
+	protected HashMap<K, Node<K, E>> index;
+	/** All vertices by their dense id, i.e. the order they are added in */
+	protected ArrayList<Node<K, E>> nodeById;
+	/** Incremented on every change to the vertices or edges; used to detect stale views */
+	protected int version;
+	/** Incremented on every change to the vertices or edges, but not on setWeight() */
+	protected int topologyVersion;
+	/** The last frozen view, and the version and topology version it was built at */
+	protected CSRGraph<K> frozen;
+	protected int frozenVersion = -1, frozenTopology = -1;
+	/** If true, findShortestPath() runs on the frozen view instead of the nodes */
+	protected boolean frozenSearch = false;
+	/** The search state reused by searches on the frozen view; of the backward search; and of the A* search */
+	protected SearchSpace space, backwardSpace, altSpace;
+	/** The algorithm of findShortestPath(), DIJKSTRA, BIDIRECTIONAL, ALT or CH */
+	protected int searchMode = DIJKSTRA;
+	/** The landmarks for ALT, the version they were computed at, and how many to pick */
+	protected Landmarks<K> landmarks;
+	protected int landmarksVersion = -1;
+	protected int landmarkCount = 8;
+	/** The contraction hierarchy for CH, the version and topology version it was built at, and its forward and backward search states */
+	protected ContractionHierarchy<K> hierarchy;
+	protected int hierarchyVersion = -1, hierarchyTopology = -1;
+	protected SearchSpace chForward, chBackward;
+	/** The cache of findShortestPath() results; null if not set */
+	protected PathCache pathCache;
+	/** The hub labels for distance(), and the version they were built at */
+	protected HubLabels<K> hubLabels;
+	protected int hubLabelsVersion = -1;
+	/** The number of vertices checked by the last findShortestPath() */
+	protected int settled;
+	/** The counters of the searches on this graph, if Stats.ENABLED */
+	protected Stats stats = new Stats();
+	/** The VertexQueue type used by Dijkstra's algorithm: PRIORITY, DARY or BUCKET */
+	protected int queueType = VertexQueue.PRIORITY;
+	/** The largest edge weight added or set; an upper bound since edges may get shorter */
+	protected int maxWeight;
 
 	/**
 	 * Default constructor
@@ -21,6 +62,8 @@ public class Graph<K, E> {
 	 */
 	Graph() {
 		listV = new LinkedList<Node<K, E>>();
+		index = new HashMap<K, Node<K, E>>();
+		nodeById = new ArrayList<Node<K, E>>();
 		pathFound = new ArrayList<Node<K,E>>();
 	}
 
@@ -29,6 +72,8 @@ public class Graph<K, E> {
 	 */
 	Graph(K k, E e) {
 		listV = new LinkedList<Node<K, E>>();
+		index = new HashMap<K, Node<K, E>>();
+		nodeById = new ArrayList<Node<K, E>>();
 		pathFound = new ArrayList<Node<K,E>>();
 		addNode(k, e);
 	}
@@ -73,29 +118,38 @@ public class Graph<K, E> {
 	 * @return true If successful; false otherwise(if duplicates found).
 	 */
 	public boolean addNode(K k, E e, int type) {
-		if (getNode(k) != null) {
+		if (index.containsKey(k)) {
 			return false;
 		}
 		else {
 			Node<K, E> tmp = new Node<K, E>(k, e);
 			tmp.setType(type);
+			// dense id, 0 to sizeV-1 in order of adding
+			tmp.id = nodeById.size();
+			index.put(k, tmp);
+			nodeById.add(tmp);
+			version++;
+			topologyVersion++;
 			return listV.offer(tmp);
 		}
 	}
 
 	/**
-	 * Get the vertex with the specified key
+	 * Get the vertex with the specified key, in constant time.
 	 * @param  k The key
 	 * @return vertex With the key; null if not found.
 	 */
 	public Node<K,E> getNode(K k) {
-		// search algo can be improved
-		for (Node<K, E> tmp : listV) {
-			if (tmp.getKey() == k) {
-				return tmp;
-			}
-		}
-		return null;
+		return index.get(k);
+	}
+
+	/**
+	 * Get the vertex with the specified dense id, in constant time.
+	 * @param  id The id, from 0 to getSizeV()-1
+	 * @return vertex With the id.
+	 */
+	public Node<K,E> nodeAt(int id) {
+		return nodeById.get(id);
 	}
 
 
@@ -120,6 +174,9 @@ public class Graph<K, E> {
 			if (added) {
 				// update number of edges if added
 				sizeE++;
+				version++;
+				topologyVersion++;
+				maxWeight = Math.max(maxWeight, w);
 			}
 			return added;
 		}
@@ -129,6 +186,297 @@ public class Graph<K, E> {
 		}
 	}
 
+	/**
+	 * remove the edge between the vertices with keys k1 and k2, both ways.
+	 * @param  k1 Key of one vertex of the edge
+	 * @param  k2 Key of the other vertex
+	 * @return true If successful; false otherwise(if no such edge).
+	 */
+	public boolean removeEdge(K k1, K k2) {
+		Node<K,E> source = getNode(k1);
+		Node<K,E> target = getNode(k2);
+		if (source == null || target == null)
+			return false;
+		// modify this for directed graph
+		boolean removed = source.removeEdge(target);
+		target.removeEdge(source);
+		if (removed) {
+			sizeE--;
+			version++;
+			topologyVersion++;
+		}
+		return removed;
+	}
+
+	/**
+	 * Set the weight of an existing edge, longer or shorter, keeping the vertices and edges as they are.
+	 * The frozen view and a customizable hierarchy are then updated by weight only, see prepareCustomizableHierarchy().
+	 * @param  k1 Key of one vertex of the edge
+	 * @param  k2 Key of the other vertex
+	 * @param  w  The new weight
+	 * @return true If the edge exists; false otherwise.
+	 */
+	public boolean setWeight(K k1, K k2, int w) {
+		Node<K,E> source = getNode(k1);
+		Node<K,E> target = getNode(k2);
+		if (source == null || target == null)
+			return false;
+		boolean found = false;
+		// modify this for directed graph
+		for (Edge<K,E> tmp : source.adj) {
+			if (tmp.target.isDuplicate(target)) {
+				tmp.replace(w);
+				found = true;
+			}
+		}
+		for (Edge<K,E> tmp : target.adj) {
+			if (tmp.target.isDuplicate(source))
+				tmp.replace(w);
+		}
+		if (found) {
+			version++;
+			maxWeight = Math.max(maxWeight, w);
+		}
+		return found;
+	}
+
+	/**
+	 * Add the edges of a CSR layout straight to the adjacency lists, in arc order, without the duplicate checks of addEdge(); see GraphSnapshot.
+	 * The graph must have exactly the vertices of the layout, by id, and no edges; the arrays are then kept as its frozen view.
+	 * @param  offsets Arcs of vertex v are at offsets[v] to offsets[v+1]-1.
+	 * @param  targets Target vertex id of each arc; each edge is two arcs.
+	 * @param  weights Weight of each arc.
+	 * @param  sizeE   The number of edges to count, as getSizeE() of the graph saved.
+	 */
+	protected void loadArcs(int[] offsets, int[] targets, int[] weights, int sizeE) {
+		if (offsets.length != getSizeV()+1 || this.sizeE != 0)
+			throw new IllegalStateException("Arcs must be loaded into a graph of the same vertices and no edges");
+		for (int u = 0; u < getSizeV(); u++) {
+			Node<K,E> node = nodeAt(u);
+			for (int arc = offsets[u]; arc < offsets[u+1]; arc++) {
+				node.adj.add(new Edge<K,E>(nodeAt(targets[arc]), weights[arc]));
+				maxWeight = Math.max(maxWeight, weights[arc]);
+			}
+		}
+		this.sizeE = sizeE;
+		version++;
+		topologyVersion++;
+		frozen = new CSRGraph<K>(this, offsets, targets, weights);
+		frozenVersion = version;
+		frozenTopology = topologyVersion;
+	}
+
+	/**
+	 * Get the frozen CSR view of this graph, rebuilt only if the graph changed since the last call.
+	 * If only weights changed, the new view shares the vertices and edges of the last one, and only copies the weights.
+	 * @return frozen The view, in which each vertex is indexed by its id.
+	 */
+	public CSRGraph<K> freeze() {
+		if (frozen == null || frozenVersion != version) {
+			if (frozen != null && frozenTopology == topologyVersion)
+				frozen = new CSRGraph<K>(frozen, this);
+			else
+				frozen = new CSRGraph<K>(this);
+			frozenVersion = version;
+			frozenTopology = topologyVersion;
+		}
+		return frozen;
+	}
+
+	/**
+	 * Get the search state for the frozen view, reused between searches while the size and queue type are unchanged.
+	 * Not thread-safe; for concurrent searches use a QueryEngine.
+	 * @return space The SearchSpace.
+	 */
+	protected SearchSpace frozenSpace() {
+		CSRGraph<K> csr = freeze();
+		if (space == null || !space.fits(csr.getSizeV(), queueType, csr.maxWeight))
+			space = csr.newSearchSpace(queueType);
+		space.stats = stats;
+		return space;
+	}
+
+	/**
+	 * Get the search state of the backward search, for the bidirectional mode.
+	 * @return space The SearchSpace.
+	 */
+	protected SearchSpace backwardSpace() {
+		CSRGraph<K> csr = freeze();
+		if (backwardSpace == null || !backwardSpace.fits(csr.getSizeV(), queueType, csr.maxWeight))
+			backwardSpace = csr.newSearchSpace(queueType);
+		backwardSpace.stats = stats;
+		return backwardSpace;
+	}
+
+	/**
+	 * Preprocess for the ALT search mode: pick landmarks by farthest-first selection and store the distances from each to all vertices.
+	 * Done again automatically by the ALT search once the graph changes.
+	 * @param  count The number of landmarks.
+	 * @return landmarks The preprocessed landmarks; see Landmarks.memoryBytes() for the size of the table.
+	 */
+	public Landmarks<K> prepareLandmarks(int count) {
+		landmarkCount = count;
+		landmarks = new Landmarks<K>(freeze(), count);
+		landmarksVersion = version;
+		return landmarks;
+	}
+
+	/**
+	 * Preprocess for the CH search mode: build a contraction hierarchy of the frozen view.
+	 * Done again automatically by the CH search once the graph changes.
+	 * @return hierarchy The contraction hierarchy; see ContractionHierarchy.save() to keep it.
+	 */
+	public ContractionHierarchy<K> prepareHierarchy() {
+		return useHierarchy(new ContractionHierarchy<K>(freeze()));
+	}
+
+	/**
+	 * Preprocess for the CH search mode with a customizable contraction hierarchy, see CustomizableHierarchy.
+	 * Once the weights change by setWeight(), the CH search only customizes it again instead of building a new one.
+	 * @return hierarchy The customizable contraction hierarchy.
+	 */
+	public CustomizableHierarchy<K> prepareCustomizableHierarchy() {
+		CustomizableHierarchy<K> cch = new CustomizableHierarchy<K>(freeze());
+		useHierarchy(cch);
+		return cch;
+	}
+
+	/**
+	 * Load a contraction hierarchy saved earlier for this graph, instead of building it.
+	 * @param  file Path of the file from ContractionHierarchy.save().
+	 * @return hierarchy The loaded hierarchy.
+	 * @throws IOException If the file is not a hierarchy of this graph as it is now.
+	 */
+	public ContractionHierarchy<K> loadHierarchy(String file) throws IOException {
+		return useHierarchy(ContractionHierarchy.load(file, freeze()));
+	}
+
+	private ContractionHierarchy<K> useHierarchy(ContractionHierarchy<K> ch) {
+		hierarchy = ch;
+		hierarchyVersion = version;
+		hierarchyTopology = topologyVersion;
+		if (chForward == null || !chForward.fits(getSizeV(), VertexQueue.DARY, 0)) {
+			chForward = ch.newSearchSpace();
+			chBackward = ch.newSearchSpace();
+		}
+		return ch;
+	}
+
+	/**
+	 * Preprocess for distance(): build the hub labels of the frozen view.
+	 * Done again automatically by distance() once the graph changes.
+	 * @return labels The hub labels; see HubLabels.toString() for their size.
+	 */
+	public HubLabels<K> prepareHubLabels() {
+		hubLabels = new HubLabels<K>(freeze());
+		hubLabelsVersion = version;
+		return hubLabels;
+	}
+
+	/**
+	 * Shortest distance between two vertices, from the hub labels, without a search or the path.
+	 * @param  k1 Key of the source vertex
+	 * @param  k2 Key of the target vertex
+	 * @return distance MAX_VALUE If no path, or either vertex not found.
+	 */
+	public int distance(K k1, K k2) {
+		if (hubLabels == null || hubLabelsVersion != version)
+			prepareHubLabels();
+		return hubLabels.distance(k1, k2);
+	}
+
+	/**
+	 * @return hierarchy The contraction hierarchy for the graph as it is now: customized again if only weights changed and it is customizable, built again otherwise.
+	 */
+	protected ContractionHierarchy<K> currentHierarchy() {
+		if (hierarchy != null && hierarchyVersion == version)
+			return hierarchy;
+		if (hierarchy instanceof CustomizableHierarchy) {
+			if (hierarchyTopology != topologyVersion)
+				return prepareCustomizableHierarchy();
+			((CustomizableHierarchy<K>) hierarchy).customize(freeze());
+			hierarchyVersion = version;
+			return hierarchy;
+		}
+		return prepareHierarchy();
+	}
+
+	/**
+	 * @return settled The number of vertices checked by the last findShortestPath(), in both directions if BIDIRECTIONAL or CH.
+	 */
+	public int settledCount() {
+		return settled;
+	}
+
+	/**
+	 * @return stats The counters of the searches on this graph; all 0 unless Stats.ENABLED.
+	 */
+	public Stats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Count the searches on this graph into a Stats, e.g. that of the Builder of the graph.
+	 * @param stats The counters to add to.
+	 */
+	public void setStats(Stats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Cache the results of findShortestPath(), by source and target, within a memory bound; least recently used first evicted.
+	 * The cache is dropped as soon as the graph changes, i.e. on addNode(), an addEdge() that adds or shortens an edge, or setWeight().
+	 * @param maxBytes The memory bound, in bytes; 0 for no cache (default).
+	 */
+	public void setPathCache(long maxBytes) {
+		pathCache = (maxBytes > 0) ? new PathCache(maxBytes) : null;
+	}
+
+	/**
+	 * @return cache The cache of findShortestPath(), with its hit, miss and eviction counters; null if not set.
+	 */
+	public PathCache getPathCache() {
+		return pathCache;
+	}
+
+	/**
+	 * Set the algorithm used by findShortestPath().
+	 * BIDIRECTIONAL searches from both ends of the frozen view and stops when the two searches meet; ALT is an A* search on the frozen view, with landmark lower bounds as heuristic (see prepareLandmarks()); CH is the upward bidirectional search of a contraction hierarchy (see prepareHierarchy()).
+	 * The path length is the same in all modes, though among equally short paths another may be found.
+	 * @param searchMode DIJKSTRA (default), BIDIRECTIONAL, ALT or CH
+	 */
+	public void setSearchMode(int searchMode) {
+		if (searchMode < DIJKSTRA || searchMode > CH)
+			throw new IllegalArgumentException("Unknown search mode " + searchMode);
+		this.searchMode = searchMode;
+	}
+
+	/**
+	 * Set findShortestPath() to run on the frozen view, and so the searches of NNGraph.computeAllStations() in either of its modes.
+	 * The paths and their lengths are the same, but the search fields of the nodes are left untouched.
+	 * @param frozenSearch If true, search the CSR arrays; if false, search the nodes.
+	 */
+	public void setFrozenSearch(boolean frozenSearch) {
+		this.frozenSearch = frozenSearch;
+	}
+
+	/**
+	 * Set the priority queue used by Dijkstra's algorithm, on the nodes and on the frozen view.
+	 * @param queueType VertexQueue.PRIORITY (default), VertexQueue.DARY or VertexQueue.BUCKET
+	 */
+	public void setQueueType(int queueType) {
+		// fail early on unknown type
+		VertexQueue.create(queueType, 0, 0);
+		this.queueType = queueType;
+	}
+
+	/**
+	 * @return queue A new, empty VertexQueue of the type set, for all vertices of this graph.
+	 */
+	protected VertexQueue newQueue() {
+		return VertexQueue.create(queueType, getSizeV(), maxWeight);
+	}
+
 	/**
 	 * Get the edge weight between vertices specified
 	 * @param  k1 Key of source vertex
@@ -187,6 +535,7 @@ public class Graph<K, E> {
 
 	/**
 	 * Dijkstra's algorithm for the shortest path, calls the two private methods computePaths() and shortestPathTo().
+	 * Runs on the frozen view if frozenSearch is set, or from both ends if the search mode is BIDIRECTIONAL.
 	 * @param  k1 Key of the source graph vertex
 	 * @param  k2 Key of the target graph vertex 
 	 * @return shortest-path If there exists, the ArrayList containing path and vertices along it; from source to target; null otherwise.
@@ -199,9 +548,76 @@ public class Graph<K, E> {
 			System.out.println("Specified vertices do not exist");
 			return null;
 		}
+		if (pathCache != null) {
+			PathCache.Entry cached = pathCache.get(source.getId(), target.getId(), version);
+			if (cached != null) {
+				// no search
+				settled = 0;
+				pathLength = cached.distance;
+				pathFound = new ArrayList<Node<K,E>>(cached.path.length);
+				for (int id : cached.path)
+					pathFound.add(nodeAt(id));
+				printPath();
+				return pathFound;
+			}
+		}
 		
-		pathLength = computePaths(source, target);
-		pathFound = shortestPathTo(target);
+		if (searchMode == BIDIRECTIONAL || searchMode == CH) {
+			if (searchMode == CH)
+				currentHierarchy();
+			SearchSpace forward = (searchMode == CH) ? chForward : frozenSpace();
+			SearchSpace backward = (searchMode == CH) ? chBackward : backwardSpace();
+			forward.stats = backward.stats = stats;
+			int meet;
+			if (searchMode == CH)
+				meet = hierarchy.meet(source.getId(), target.getId(), forward, backward);
+			else
+				meet = freeze().bidirectionalMeet(source.getId(), target.getId(), forward, backward);
+			settled = forward.settled() + backward.settled();
+			if (meet == -1) {
+				// no path, as in computePaths(): only the target
+				pathLength = Integer.MAX_VALUE;
+				pathFound = new ArrayList<Node<K,E>>();
+				pathFound.add(target);
+			}
+			else {
+				pathLength = forward.dist(meet) + backward.dist(meet);
+				int[] path;
+				if (searchMode == CH)
+					path = hierarchy.unpack(meet, forward, backward);
+				else
+					path = freeze().joinPath(meet, forward, backward);
+				pathFound = new ArrayList<Node<K,E>>(path.length);
+				for (int id : path)
+					pathFound.add(nodeAt(id));
+			}
+		}
+		else if (searchMode == ALT) {
+			if (landmarks == null || landmarksVersion != version)
+				prepareLandmarks(landmarkCount);
+			if (altSpace == null || !altSpace.fits(getSizeV(), queueType, 2*freeze().maxWeight))
+				altSpace = landmarks.newSearchSpace(queueType);
+			altSpace.stats = stats;
+			pathLength = landmarks.computePaths(source.getId(), target.getId(), altSpace);
+			settled = altSpace.settled();
+			pathFound = nodesOf(altSpace.trace(target.getId()));
+		}
+		else if (frozenSearch) {
+			SearchSpace space = frozenSpace();
+			pathLength = freeze().computePaths(source.getId(), target.getId(), space);
+			settled = space.settled();
+			pathFound = nodesOf(space.trace(target.getId()));
+		}
+		else {
+			pathLength = computePaths(source, target);
+			pathFound = shortestPathTo(target);
+		}
+		if (pathCache != null) {
+			int[] path = new int[pathFound.size()];
+			for (int i = 0; i < path.length; i++)
+				path[i] = pathFound.get(i).getId();
+			pathCache.put(source.getId(), target.getId(), version, pathLength, path);
+		}
 		// System.out.println("head is " + pathFound.get(0).getKey());
 		printPath();
 		return pathFound;
@@ -213,7 +629,7 @@ public class Graph<K, E> {
 	 * @param source The source vertex to compute path from.
 	 */
 	protected int computePaths(Node<K,E> source, Node<K,E> aim) {
-		PriorityQueue<Node<K,E>> vertexQ = new PriorityQueue<Node<K,E>>();
+		VertexQueue vertexQ = newQueue();
 		// resets for each method run		
 		for (Node<K,E> v : listV) {
 			v.checked = false;
@@ -222,39 +638,98 @@ public class Graph<K, E> {
 		}
 		// initialize
 		source.minDistance = 0;
-		vertexQ.add(source);
+		vertexQ.offer(source.getId(), 0);
+		settled = 0;
+		if (Stats.ENABLED)
+			countSearch();
 
 		while(!vertexQ.isEmpty()) {
-			Node<K, E> u = vertexQ.poll();
+			Node<K, E> u = nodeAt(vertexQ.poll());
 			u.check();
+			settled++;
+			if (Stats.ENABLED)
+				countCheck();
 			// control: method ends at aim-vertex
 			if (u.isDuplicate(aim))
 				break;
 
-			// do for each adjacent vertex
-			for (Edge<K,E> tmp : u.adj) {
-				// the other end of edge
-				Node<K, E> v = tmp.target;
-				if (!v.checked) {
-					int distanceThru = u.minDistance + tmp.weight;
-					if (distanceThru < v.minDistance) {
-						// update minDistance & previous
-						vertexQ.remove(v);
-						v.minDistance = distanceThru;
-						v.previous = u;
-						vertexQ.add(v);
-					}
-				}
-			}
-
+			relax(u, vertexQ);
 		}
 
-		System.out.println("\nshortest dist bet " + source.getKey() + " and " + aim.getKey() + " is " + aim.minDistance);
+		// System.out.println("\nshortest dist bet " + source.getKey() + " and " + aim.getKey() + " is " + aim.minDistance);
 		// if return finite val, implies path is found
 		return aim.minDistance;
 		
 	}
 
+	/**
+	 * Helper method for Dijkstra's algorithm: relax all edges of a vertex just checked.
+	 * @param u      The vertex polled from vertexQ.
+	 * @param vertexQ The queue to offer (or decrease-key) the adjacent vertices into.
+	 */
+	protected void relax(Node<K,E> u, VertexQueue vertexQ) {
+		// do for each adjacent vertex
+		for (Edge<K,E> tmp : u.adj) {
+			// the other end of edge
+			Node<K, E> v = tmp.target;
+			if (!v.checked) {
+				int distanceThru = u.minDistance + tmp.weight;
+				if (Stats.ENABLED)
+					countRelax(distanceThru, v.minDistance);
+				if (distanceThru < v.minDistance) {
+					// update minDistance & previous
+					v.minDistance = distanceThru;
+					v.previous = u;
+					vertexQ.offer(v.getId(), distanceThru);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Count a search on the nodes, started by resetting every vertex and offering the source; see Stats.
+	 */
+	protected void countSearch() {
+		stats.searches++;
+		stats.resets += getSizeV();
+		stats.inserts++;
+	}
+
+	/**
+	 * Count a vertex polled from the queue and checked; see Stats.
+	 */
+	protected void countCheck() {
+		stats.settled++;
+		stats.polls++;
+	}
+
+	/**
+	 * Count a relaxation of an edge to an unchecked vertex, and its queue operation if any; see Stats.
+	 * @param distanceThru The distance to the vertex through the edge.
+	 * @param minDistance  Its distance so far; MAX_VALUE if not yet offered to the queue.
+	 */
+	protected void countRelax(int distanceThru, int minDistance) {
+		stats.relaxations++;
+		if (distanceThru < minDistance) {
+			if (minDistance == Integer.MAX_VALUE)
+				stats.inserts++;
+			else
+				stats.decreaseKeys++;
+		}
+	}
+
+	/**
+	 * Map a path of ids traced back from the target to its nodes, from source to target.
+	 * @param  trace The ids from the target back to the source.
+	 * @return path The ArrayList containing path and vertices along it; from source to target.
+	 */
+	protected ArrayList<Node<K,E>> nodesOf(int[] trace) {
+		ArrayList<Node<K,E>> path = new ArrayList<Node<K,E>>(trace.length);
+		for (int i = trace.length-1; i >= 0; i--)
+			path.add(nodeAt(trace[i]));
+		return path;
+	}
+
 	/**
 	 * Method to call immediately after computePaths()
 	 * Picks out the path from the source specified in the preceeding method to the target.
@@ -296,6 +771,8 @@ class Node<K, E> implements Comparable<Node<K,E>>{
 	private E ele;
 	/** Type of node: 1 depot; -1 station; 0 unknown */
 	private int type;
+	/** Dense id of node in its graph: 0 to sizeV-1; -1 if not in a graph */
+	protected int id = -1;
 	/** The adjacency list, entry = weight of edge */
 	protected LinkedList<Edge<K, E>> adj;
 
@@ -367,6 +844,13 @@ class Node<K, E> implements Comparable<Node<K,E>>{
 
 
 
+	/**
+	 * @return id Of this vertex, dense in its graph; use it to index arrays.
+	 */
+	public int getId() {
+		return id;
+	}
+
 	/**
 	 * @return key Of this vertex.
 	 */
@@ -394,10 +878,7 @@ class Node<K, E> implements Comparable<Node<K,E>>{
 	 * @return true If keys are identical; false otherwise.
 	 */
 	public boolean isDuplicate(Node<K,E> other) {
-		if (other.getKey() == this.key)
-			return true;
-		else
-			return false;
+		return Objects.equals(other.getKey(), this.key);
 	}
 
 	/**
@@ -408,7 +889,7 @@ class Node<K, E> implements Comparable<Node<K,E>>{
 	public Node<K,E> getAdjNode(K k) {
 		// search algo can be improved
 		for (Edge<K, E> tmp : adj) {
-			if (tmp.target.getKey() == k) {
+			if (Objects.equals(tmp.target.getKey(), k)) {
 				return tmp.target;
 			}
 		}
@@ -422,6 +903,22 @@ class Node<K, E> implements Comparable<Node<K,E>>{
 		return adj.listIterator(0);
 	}
 
+	/**
+	 * remove the edge to another vertex.
+	 * @param  other The other vertex of the edge.
+	 * @return true If removed; false If no such edge.
+	 */
+	protected boolean removeEdge(Node<K, E> other) {
+		Iterator<Edge<K, E>> itr = adj.iterator();
+		while (itr.hasNext()) {
+			if (other.isDuplicate(itr.next().target)) {
+				itr.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * add an edge to this vertex, allows no duplicates;
 	 * shorter edge replaces the longer edge.
@@ -0,0 +1,112 @@
+import jdk.jfr.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * The Java Flight Recorder events of the graph phases, so GC pauses and allocation can be lined up against them in one recording; see "make record".
+ * Each event is committed only while a recording has it enabled, else it costs a check; findClosestDepot() is a search per station, so only one in SAMPLE of its calls is recorded.
+ * The dataset of an event is the index of the graph, 1-27, as in Importer.importGraph(); -1 if imported by path or not known.
+ */
+public class GraphEvents {
+	/** One in this many calls of findClosestDepot() is recorded; set by -Dgraph.jfr.sample, default 64 */
+	public static final int SAMPLE = Math.max(1, Integer.getInteger("graph.jfr.sample", 64));
+
+	private GraphEvents() {
+	}
+
+
+	@Name("graph.ImportEdges")
+	@Label("Import Edges")
+	@Category({"Graph", "Import"})
+	@Description("Importer.importEdge(), or the edges of a topology: an edge file read and its edges passed on")
+	static class ImportEdges extends Event {
+		@Label("Dataset")
+		int dataset;
+		@Label("File")
+		String file;
+		@Label("Lines")
+		@Description("Edges in the file")
+		int lines;
+		@Label("Edges")
+		@Description("Edges passed on, i.e. between nodes of the location set; all, for a topology")
+		int edges;
+	}
+
+
+	@Name("graph.BuildGraph")
+	@Label("Build Graph")
+	@Category({"Graph", "Build"})
+	@Description("Builder.buildGraph(): a graph built from its files, a topology, or a snapshot")
+	static class BuildGraph extends Event {
+		@Label("Dataset")
+		int dataset;
+		@Label("Source")
+		@Description("files, topology or snapshot")
+		String source;
+		@Label("Vertices")
+		int vertices;
+		@Label("Edges")
+		int edges;
+	}
+
+
+	@Name("graph.FindClosestDepot")
+	@Label("Find Closest Depot")
+	@Category({"Graph", "Search"})
+	@Description("NNGraph.findClosestDepot(), one in graph.jfr.sample calls: a Dijkstra's search from a station")
+	@StackTrace(false)
+	static class FindClosestDepot extends Event {
+		@Label("Dataset")
+		int dataset;
+		@Label("Station")
+		String station;
+		@Label("Settled")
+		@Description("Vertices checked")
+		int settled;
+		@Label("Found")
+		@Description("If a depot was reached")
+		boolean found;
+	}
+
+
+	@Name("graph.ComputeAllStations")
+	@Label("Compute All Stations")
+	@Category({"Graph", "Search"})
+	@Description("NNGraph.computeAllStations(): the path from each station to its closest depot")
+	static class ComputeAllStations extends Event {
+		@Label("Dataset")
+		int dataset;
+		@Label("Vertices")
+		int vertices;
+		@Label("Edges")
+		int edges;
+		@Label("Stations")
+		@Description("Stations to compute")
+		int stations;
+		@Label("Settled")
+		@Description("Vertices checked by all searches")
+		long settled;
+		@Label("Paths")
+		int paths;
+	}
+
+
+	@Name("graph.PathReduce")
+	@Label("Path Reduce")
+	@Category({"Graph", "Reduce"})
+	@Description("NNGraph.pathReduce(): the paths reduced to the Nearest-Neighbor paths")
+	static class PathReduce extends Event {
+		@Label("Dataset")
+		int dataset;
+		@Label("Mode")
+		@Description("NNGraph.REDUCE_SUBLIST, REDUCE_FOREST or REDUCE_PARALLEL")
+		int mode;
+		@Label("Paths")
+		int paths;
+		@Label("Reduced Paths")
+		int reducedPaths;
+	}
+
+
+}
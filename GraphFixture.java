@@ -0,0 +1,114 @@
+import org.junit.Assert;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * Graphs shared by the tests of the search structures: QueryEngine, Landmarks, ContractionHierarchy, CustomizableHierarchy and HubLabels.
+ * Each graph has keys 0 to size-1, added in order, so a key is also its id in the frozen view.
+ */
+class GraphFixture {
+	/** The seed of the random graphs, so every test sees the same ones */
+	static final long SEED = 150;
+
+	private GraphFixture() {
+	}
+
+
+	/**
+	 * A random connected graph: a line 0-1-...-(size-1) of weights 1 to 20, plus random chords, self-loops and duplicates among them.
+	 * @param  size      The number of vertices.
+	 * @param  chords    The number of chords.
+	 * @param  maxWeight The chords weigh 0 to maxWeight-1.
+	 * @return graph The graph, by Random(SEED).
+	 */
+	static Graph<Integer, Integer> randomGraph(int size, int chords, int maxWeight) {
+		Graph<Integer, Integer> graph = new Graph<Integer, Integer>();
+		for (int i = 0; i < size; i++)
+			graph.addNode(i, i);
+		Random random = new Random(SEED);
+		for (int i = 0; i < size-1; i++)
+			graph.addEdge(i, i+1, 1 + random.nextInt(20));
+		for (int i = 0; i < chords; i++)
+			graph.addEdge(random.nextInt(size), random.nextInt(size), random.nextInt(maxWeight));
+		return graph;
+	}
+
+
+	/**
+	 * Two random graphs side by side, with no edge between them: every pair across is unreachable.
+	 * @param  size The number of vertices of each; the first has keys 0 to size-1, the second size to 2*size-1.
+	 * @return graph The graph.
+	 */
+	static Graph<Integer, Integer> twoComponents(int size) {
+		Graph<Integer, Integer> graph = randomGraph(size, size, 30);
+		for (int i = size; i < 2*size; i++)
+			graph.addNode(i, i);
+		Random random = new Random(SEED+1);
+		for (int i = size; i < 2*size-1; i++)
+			graph.addEdge(i, i+1, 1 + random.nextInt(20));
+		for (int i = 0; i < size; i++)
+			graph.addEdge(size + random.nextInt(size), size + random.nextInt(size), random.nextInt(30));
+		return graph;
+	}
+
+
+	/**
+	 * A random graph of weights 0 and 1 only, so most vertices tie with others at the same distance.
+	 * @param  size The number of vertices.
+	 * @return graph A line 0-1-...-(size-1) plus 2*size chords, each weight 0 or 1.
+	 */
+	static Graph<Integer, Integer> zeroWeights(int size) {
+		Graph<Integer, Integer> graph = new Graph<Integer, Integer>();
+		for (int i = 0; i < size; i++)
+			graph.addNode(i, i);
+		Random random = new Random(SEED);
+		for (int i = 0; i < size-1; i++)
+			graph.addEdge(i, i+1, random.nextInt(2));
+		for (int i = 0; i < 2*size; i++)
+			graph.addEdge(random.nextInt(size), random.nextInt(size), random.nextInt(2));
+		return graph;
+	}
+
+
+	/**
+	 * A clique of unit weights, and a detour around it: from the clique's vertex 0 through v = size to w = size+1 weighs 2*detour, while the path 0-1-x-w, with x = size+2, weighs 3.
+	 * A witness search from 0 checks the whole clique before it reaches w, so if the clique is larger than the witness limit of ContractionHierarchy, contracting v adds the shortcut 0-w though it is not needed.
+	 * @param  size   Of the clique, keys 0 to size-1.
+	 * @param  detour The weight of 0-v and v-w.
+	 * @return graph The graph.
+	 */
+	static Graph<Integer, Integer> cliqueWithDetour(int size, int detour) {
+		Graph<Integer, Integer> graph = new Graph<Integer, Integer>();
+		for (int i = 0; i < size+3; i++)
+			graph.addNode(i, i);
+		for (int i = 0; i < size; i++)
+			for (int j = i+1; j < size; j++)
+				graph.addEdge(i, j, 1);
+		graph.addEdge(0, size, detour);
+		graph.addEdge(size, size+1, detour);
+		graph.addEdge(1, size+2, 1);
+		graph.addEdge(size+2, size+1, 1);
+		return graph;
+	}
+
+
+	/**
+	 * Assert that a distance oracle agrees with Dijkstra's search on the frozen view, from every step-th source to every target; MAX_VALUE if unreachable.
+	 * @param  csr      The frozen graph.
+	 * @param  step     Between the sources.
+	 * @param  distance Of two ids, as given by the structure tested.
+	 */
+	static void assertExact(CSRGraph<Integer> csr, int step, IntBinaryOperator distance) {
+		SearchSpace dijkstra = csr.newSearchSpace(VertexQueue.DARY);
+		for (int s = 0; s < csr.getSizeV(); s += step) {
+			csr.computeAllPaths(s, dijkstra);
+			for (int t = 0; t < csr.getSizeV(); t++)
+				Assert.assertTrue(distance.applyAsInt(s, t) == dijkstra.dist(t));
+		}
+	}
+
+
+}
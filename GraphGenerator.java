@@ -0,0 +1,214 @@
+import java.util.*;
+import java.io.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A seeded generator of synthetic graphs, written as data files in the formats of those in data/: an edge file "<vertices>-<edges>.pyg" of lines "k1 - k2 weight", and a "locations.txt" of lines "depot k" or "station k".
+ * Keys are 1 to the number of vertices, weights 0 to MAX_WEIGHT, as in data/. Two kinds:
+ * ROAD, sparse and local: a grid with some roads missing and a few diagonal shortcuts, about 2 edges per vertex;
+ * DENSE, a uniform random graph of a given average degree, duplicate edges and all.
+ * The same seed gives the same files.
+ */
+public class GraphGenerator {
+	/** The kinds of graph */
+	public static final String ROAD = "road", DENSE = "dense";
+	/** The largest weight of an edge */
+	public static final int MAX_WEIGHT = 50;
+	/** In a ROAD graph, the chance that a road of the grid exists, and of a diagonal shortcut */
+	private static final double ROAD_CHANCE = 0.9, SHORTCUT_CHANCE = 0.05;
+	private final Random random;
+
+
+	/**
+	 * Constructor.
+	 * @param  seed Of the random numbers, so the graphs can be made again.
+	 */
+	GraphGenerator(long seed) {
+		random = new Random(seed);
+	}
+
+
+	/**
+	 * Write a graph and its locations in a directory; see main().
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.out.println("Usage: java GraphGenerator road|dense <vertices> <depot fraction> [degree] [directory] [seed]");
+			System.out.println("e.g.:  java GraphGenerator road 10000 0.1 10 data/generated 150");
+			return;
+		}
+		String kind = args[0];
+		int vertices = Integer.parseInt(args[1]);
+		double depotFraction = Double.parseDouble(args[2]);
+		int degree = (args.length > 3) ? Integer.parseInt(args[3]) : 10;
+		String dir = (args.length > 4) ? args[4] : ".";
+		long seed = (args.length > 5) ? Long.parseLong(args[5]) : 150;
+
+		GraphGenerator generator = new GraphGenerator(seed);
+		new File(dir).mkdirs();
+		String edgeFile = generator.writeEdges(dir, vertices, generator.generate(kind, vertices, degree));
+		generator.writeLocations(dir + "/locations.txt", vertices, depotFraction, 1);
+		System.out.println("Wrote " + edgeFile + " and " + dir + "/locations.txt");
+	}
+
+
+	/**
+	 * Generate the edges of a graph.
+	 * @param  kind     ROAD or DENSE.
+	 * @param  vertices The number of vertices, keyed 1 to vertices.
+	 * @param  degree   The average degree of a DENSE graph; a ROAD graph's is about 4.
+	 * @return edges Triples: <node1>, <node2>, <weight>, in random order.
+	 */
+	public int[] generate(String kind, int vertices, int degree) {
+		if (kind.equals(ROAD))
+			return road(vertices);
+		if (kind.equals(DENSE))
+			return dense(vertices, degree);
+		throw new IllegalArgumentException("No graph kind " + kind);
+	}
+
+
+	/**
+	 * @param  vertices The number of vertices.
+	 * @return edges Of a grid as near square as can be, with roads to the right and down, a few missing, and a few diagonals.
+	 */
+	public int[] road(int vertices) {
+		int width = (int) Math.ceil(Math.sqrt(vertices));
+		int[] edges = new int[3*capacity(3L*vertices)];
+		int size = 0;
+		for (int v = 1; v <= vertices; v++) {
+			boolean right = (v % width != 0 && v+1 <= vertices), down = (v+width <= vertices);
+			if (right && random.nextDouble() < ROAD_CHANCE)
+				size = put(edges, size, v, v+1);
+			if (down && random.nextDouble() < ROAD_CHANCE)
+				size = put(edges, size, v, v+width);
+			// control: v+width+1 is past the last vertex if the last row ends at v+width
+			if (right && down && v+width+1 <= vertices && random.nextDouble() < SHORTCUT_CHANCE)
+				size = put(edges, size, v, v+width+1);
+		}
+		return shuffle(Arrays.copyOf(edges, size));
+	}
+
+
+	/**
+	 * @param  vertices The number of vertices.
+	 * @param  degree   The average degree: vertices*degree/2 edges, between random distinct vertices.
+	 * @return edges Of the random graph.
+	 */
+	public int[] dense(int vertices, int degree) {
+		if (vertices < 2)
+			throw new IllegalArgumentException("Too few vertices for a dense graph: " + vertices);
+		int lines = capacity((long) vertices*degree/2);
+		int[] edges = new int[3*lines];
+		int size = 0;
+		for (int i = 0; i < lines; i++) {
+			int k1 = 1 + random.nextInt(vertices);
+			int k2 = 1 + random.nextInt(vertices-1);
+			// control: any vertex but k1
+			if (k2 >= k1)
+				k2++;
+			size = put(edges, size, k1, k2);
+		}
+		return edges;
+	}
+
+
+	/**
+	 * @param  lines Edges wanted.
+	 * @return lines If they fit in an array of triples.
+	 */
+	private static int capacity(long lines) {
+		if (3*lines > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many edges: " + lines);
+		return (int) lines;
+	}
+
+
+	/**
+	 * Add an edge of random weight and direction.
+	 * @return size Of edges after.
+	 */
+	private int put(int[] edges, int size, int k1, int k2) {
+		boolean flip = random.nextBoolean();
+		edges[size++] = flip ? k2 : k1;
+		edges[size++] = flip ? k1 : k2;
+		edges[size++] = random.nextInt(MAX_WEIGHT+1);
+		return size;
+	}
+
+
+	/**
+	 * Shuffle the triples of an edge list, as the lines of the data files are in no order.
+	 * @return edges Shuffled in place.
+	 */
+	private int[] shuffle(int[] edges) {
+		for (int i = edges.length/3 - 1; i > 0; i--) {
+			int j = random.nextInt(i+1);
+			for (int c = 0; c < 3; c++) {
+				int tmp = edges[3*i+c];
+				edges[3*i+c] = edges[3*j+c];
+				edges[3*j+c] = tmp;
+			}
+		}
+		return edges;
+	}
+
+
+	/**
+	 * Write an edge file.
+	 * @param  dir      Directory to write in.
+	 * @param  vertices The number of vertices, for the name of the file.
+	 * @param  edges    Triples: <node1>, <node2>, <weight>.
+	 * @return path Of the file, "<dir>/<vertices>-<edges>.pyg".
+	 */
+	public String writeEdges(String dir, int vertices, int[] edges) throws IOException {
+		String path = dir + "/" + vertices + "-" + edges.length/3 + ".pyg";
+		BufferedWriter writer = new BufferedWriter(new FileWriter(path), 1 << 16);
+		for (int i = 0; i < edges.length; i += 3)
+			writer.write(edges[i] + " - " + edges[i+1] + " " + edges[i+2] + "\n");
+		writer.close();
+		return path;
+	}
+
+
+	/**
+	 * Write a locations file: a random share of the vertices, a fraction of them depots and the rest stations, in random order.
+	 * @param  path          Of the file.
+	 * @param  vertices      The number of vertices, keyed 1 to vertices.
+	 * @param  depotFraction Of the locations that are depots, 0 to 1.
+	 * @param  coverage      Of the vertices that are locations, 0 to 1; those of data/ cover 30-60%.
+	 * @return depots The number written.
+	 */
+	public int writeLocations(String path, int vertices, double depotFraction, double coverage) throws IOException {
+		int[] keys = new int[vertices];
+		for (int i = 0; i < vertices; i++)
+			keys[i] = i+1;
+		for (int i = vertices-1; i > 0; i--) {
+			int j = random.nextInt(i+1);
+			int tmp = keys[i];
+			keys[i] = keys[j];
+			keys[j] = tmp;
+		}
+		int locations = (int) Math.round(coverage*vertices);
+		int depots = (int) Math.round(depotFraction*locations);
+		// the depots, drawn at random, then the stations; each line at a random place
+		boolean[] depot = new boolean[locations];
+		for (int i = 0; i < depots; i++)
+			depot[i] = true;
+		for (int i = locations-1; i > 0; i--) {
+			int j = random.nextInt(i+1);
+			boolean tmp = depot[i];
+			depot[i] = depot[j];
+			depot[j] = tmp;
+		}
+		BufferedWriter writer = new BufferedWriter(new FileWriter(path), 1 << 16);
+		for (int i = 0; i < locations; i++)
+			writer.write((depot[i] ? "depot " : "station ") + keys[i] + "\n");
+		writer.close();
+		return depots;
+	}
+
+
+}
@@ -0,0 +1,233 @@
+import java.util.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A binary snapshot of a built graph, so it is loaded without parsing or building edge by edge.
+ * The file is a header: magic "GS01", format version, sizeV, number of arcs, sizeE, the fingerprint of the data files the graph was built from, and the CRC-32 of the rest;
+ * then the vertex keys by id, the CSR offsets, targets and weights of the frozen view, all ints, and the vertex types, a byte each; big-endian as DataOutputStream.
+ * Loading maps the file, checks the CRC, bulk-copies each array out of the mapping and hands them to the graph as its adjacency lists and frozen view, see Graph.loadArcs().
+ * The adjacency order is kept, so searches on a loaded graph break ties as on the graph saved.
+ * A snapshot whose fingerprint differs from that of the data files now, see fingerprint(), is stale: Builder builds the graph again and overwrites it.
+ * Graphs of Builder only: Integer keys, each element equal to its key.
+ */
+public class GraphSnapshot {
+	/** "GS01", the header of a snapshot */
+	private static final int MAGIC = 0x47533031;
+	/** The format written; a file of another format is refused */
+	protected static final int FORMAT = 1;
+	/** Bytes of the header: six ints and the checksum */
+	private static final int HEADER = 32;
+	/** Offset of the fingerprint in the header */
+	private static final int SOURCE = 20;
+
+	private GraphSnapshot() {
+	}
+
+
+	/**
+	 * Convert the data files into snapshots, one per graph.
+	 * @param  args The directory to write to, then the graphs to convert, 1-27; all if none given.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.out.println("Usage: java GraphSnapshot <directory> [graph ...]");
+			return;
+		}
+		new File(args[0]).mkdirs();
+		ArrayList<Integer> graphs = new ArrayList<Integer>();
+		for (int i = 1; i < args.length; i++)
+			graphs.add(Integer.parseInt(args[i]));
+		if (graphs.isEmpty()) {
+			for (int i = 1; i <= 27; i++)
+				graphs.add(i);
+		}
+		for (int whichGraph : graphs) {
+			Builder builder = new Builder();
+			builder.setMappedImport(true);
+			long start = System.nanoTime();
+			NNGraph<Integer, Integer> graph = builder.buildGraph(whichGraph);
+			double built = (System.nanoTime() - start)/1e6;
+			String file = fileOf(args[0], whichGraph);
+			save(graph, file, fingerprint(new Importer().dataFiles(whichGraph)));
+			start = System.nanoTime();
+			load(file);
+			double loaded = (System.nanoTime() - start)/1e6;
+			System.out.println(String.format("%s: %d vertices, %d edges, %d bytes; built in %.1f ms, loaded in %.1f ms",
+				file, graph.getSizeV(), graph.getSizeE(), new File(file).length(), built, loaded));
+		}
+	}
+
+
+	/**
+	 * @param  directory Of the snapshots.
+	 * @param  whichGraph Index of the graph data, 1-27.
+	 * @return path Of the snapshot of the graph, as written by main().
+	 */
+	public static String fileOf(String directory, int whichGraph) {
+		return new File(directory, "graph-" + whichGraph + ".snap").getPath();
+	}
+
+
+	/**
+	 * A fingerprint of the data files of a graph: the CRC-32 of the path, length and time last modified of each.
+	 * Any rewrite of a file changes it, without reading the file; a missing file counts as of length and time 0.
+	 * @param  files Paths of the data files, e.g. by Importer.dataFiles().
+	 * @return fingerprint Stored in the header of a snapshot, see save().
+	 */
+	public static int fingerprint(String... files) {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		for (String path : files) {
+			File file = new File(path);
+			crc.update(path.getBytes());
+			buffer.clear();
+			buffer.putLong(file.length()).putLong(file.lastModified());
+			crc.update(buffer.array());
+		}
+		return (int) crc.getValue();
+	}
+
+
+	/**
+	 * Read the fingerprint of the data files a snapshot was built from, without loading it.
+	 * @param  file Path of the snapshot.
+	 * @return fingerprint As given to save().
+	 * @throws IOException If the file is not a snapshot.
+	 */
+	public static int sourceOf(String file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException(file + " is not a graph snapshot");
+			in.skipBytes(SOURCE - 4);
+			return in.readInt();
+		}
+		catch (EOFException e) {
+			throw new IOException(file + " is not a graph snapshot");
+		}
+	}
+
+
+	/**
+	 * Save a graph to a snapshot file, of unknown data files.
+	 * @param  graph The graph; its frozen view is what is written.
+	 * @param  file  Path of the file.
+	 */
+	public static void save(Graph<Integer, ?> graph, String file) throws IOException {
+		save(graph, file, 0);
+	}
+
+
+	/**
+	 * Save a graph to a snapshot file.
+	 * @param  graph  The graph; its frozen view is what is written.
+	 * @param  file   Path of the file.
+	 * @param  source The fingerprint of the data files it was built from.
+	 */
+	public static void save(Graph<Integer, ?> graph, String file, int source) throws IOException {
+		CSRGraph<Integer> csr = graph.freeze();
+		int sizeV = csr.getSizeV();
+		int[] keys = new int[sizeV];
+		for (int v = 0; v < sizeV; v++)
+			keys[v] = csr.keyOf(v);
+		CRC32 crc = new CRC32();
+		CSRGraph.updateCRC(crc, keys);
+		CSRGraph.updateCRC(crc, csr.offsets);
+		CSRGraph.updateCRC(crc, csr.targets);
+		CSRGraph.updateCRC(crc, csr.weights);
+		crc.update(csr.types);
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT);
+			out.writeInt(sizeV);
+			out.writeInt(csr.targets.length);
+			out.writeInt(csr.getSizeE());
+			out.writeInt(source);
+			out.writeLong(crc.getValue());
+			writeArray(out, keys);
+			writeArray(out, csr.offsets);
+			writeArray(out, csr.targets);
+			writeArray(out, csr.weights);
+			out.write(csr.types);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+
+	/**
+	 * Load a graph from a snapshot file.
+	 * @param  file Path of the file.
+	 * @return graph The graph saved, with its frozen view already built.
+	 * @throws IOException If the file is not a snapshot, of another format, truncated or corrupt.
+	 */
+	public static NNGraph<Integer, Integer> load(String file) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER || channel.size() >= Integer.MAX_VALUE)
+				throw new IOException(file + " is not a graph snapshot");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.getInt(0) != MAGIC)
+			throw new IOException(file + " is not a graph snapshot");
+		if (buffer.getInt(4) != FORMAT)
+			throw new IOException(file + " is of snapshot format " + buffer.getInt(4) + ", not " + FORMAT);
+		int sizeV = buffer.getInt(8);
+		int arcs = buffer.getInt(12);
+		int sizeE = buffer.getInt(16);
+		long checksum = buffer.getLong(24);
+		long length = HEADER + 4L*(sizeV + sizeV+1 + 2L*arcs) + sizeV;
+		if (sizeV < 0 || arcs < 0 || buffer.capacity() != length)
+			throw new IOException(file + " is truncated: " + buffer.capacity() + " bytes, expected " + length);
+		CRC32 crc = new CRC32();
+		crc.update(slice(buffer, HEADER, (int) length - HEADER));
+		if (crc.getValue() != checksum)
+			throw new IOException(file + " is corrupt: checksum mismatch");
+
+		IntBuffer ints = slice(buffer, HEADER, 4*(2*sizeV + 1 + 2*arcs)).asIntBuffer();
+		int[] keys = readArray(ints, sizeV);
+		int[] offsets = readArray(ints, sizeV+1);
+		int[] targets = readArray(ints, arcs);
+		int[] weights = readArray(ints, arcs);
+		byte[] types = new byte[sizeV];
+		slice(buffer, (int) length - sizeV, sizeV).get(types);
+
+		NNGraph<Integer, Integer> graph = new NNGraph<Integer, Integer>();
+		for (int v = 0; v < sizeV; v++) {
+			if (!graph.addNode(keys[v], keys[v], types[v]))
+				throw new IOException(file + " is corrupt: duplicate key " + keys[v]);
+		}
+		graph.loadArcs(offsets, targets, weights, sizeE);
+		return graph;
+	}
+
+
+	private static ByteBuffer slice(ByteBuffer buffer, int start, int length) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(start);
+		slice.limit(start + length);
+		return slice.slice();
+	}
+
+	private static void writeArray(DataOutputStream out, int[] array) throws IOException {
+		for (int x : array)
+			out.writeInt(x);
+	}
+
+	private static int[] readArray(IntBuffer ints, int length) {
+		int[] array = new int[length];
+		ints.get(array);
+		return array;
+	}
+}
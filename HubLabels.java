@@ -0,0 +1,173 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A hub labeling of a CSRGraph: each vertex gets a label, a list of (hub, distance) pairs sorted by hub, such that any two connected vertices share a hub on a shortest path between them.
+ * The distance between two vertices is then the least sum over their common hubs, a merge of two short arrays.
+ * Labels are built by pruned landmark labeling: a Dijkstra's search from each vertex in turn, most connected first, that stops at vertices whose distance the labels so far already give.
+ * All labels are kept in three flat arrays.
+ */
+public class HubLabels<K> {
+	protected final CSRGraph<K> graph;
+	protected final int sizeV;
+	/** Vertex of each hub rank, and rank of each vertex; hubs are referred to by rank */
+	protected final int[] order, hubRank;
+	/** Label of v at index labelOffsets[v] to labelOffsets[v+1]-1: hub ranks, increasing, and distances */
+	protected final int[] labelOffsets, hubs, hubDist;
+
+	/**
+	 * Constructor.
+	 * Build the labels, one pruned search per vertex.
+	 * @param  graph The frozen graph.
+	 */
+	HubLabels(CSRGraph<K> graph) {
+		this.graph = graph;
+		sizeV = graph.getSizeV();
+
+		// hub order: highest degree first, ties by id
+		Integer[] byDegree = new Integer[sizeV];
+		for (int v = 0; v < sizeV; v++)
+			byDegree[v] = v;
+		Arrays.sort(byDegree, (a, b) -> (graph.getDegree(a) != graph.getDegree(b)) ? graph.getDegree(b) - graph.getDegree(a) : a - b);
+		order = new int[sizeV];
+		hubRank = new int[sizeV];
+		for (int i = 0; i < sizeV; i++) {
+			order[i] = byDegree[i];
+			hubRank[order[i]] = i;
+		}
+
+		// labels while built: per vertex, hub ranks and distances, appended in increasing rank
+		int[][] labelHub = new int[sizeV][2];
+		int[][] labelDist = new int[sizeV][2];
+		int[] labelSize = new int[sizeV];
+		// label of the current root, by hub rank; MAX_VALUE if not in it
+		int[] rootDist = new int[sizeV];
+		Arrays.fill(rootDist, Integer.MAX_VALUE);
+		SearchSpace space = graph.newSearchSpace(VertexQueue.DARY);
+
+		for (int i = 0; i < sizeV; i++) {
+			int root = order[i];
+			for (int j = 0; j < labelSize[root]; j++)
+				rootDist[labelHub[root][j]] = labelDist[root][j];
+
+			space.reset();
+			space.reach(root, 0, -1);
+			space.vertexQ.offer(root, 0);
+			while (!space.vertexQ.isEmpty()) {
+				int u = space.vertexQ.poll();
+				space.check(u);
+				int distU = space.dist(u);
+				// prune: the labels so far already cover u at no more than distU
+				boolean covered = false;
+				for (int j = 0; j < labelSize[u] && !covered; j++) {
+					int d = rootDist[labelHub[u][j]];
+					covered = d != Integer.MAX_VALUE && (long) d + labelDist[u][j] <= distU;
+				}
+				if (covered)
+					continue;
+				if (labelSize[u] == labelHub[u].length) {
+					labelHub[u] = Arrays.copyOf(labelHub[u], 2*labelSize[u]);
+					labelDist[u] = Arrays.copyOf(labelDist[u], 2*labelSize[u]);
+				}
+				labelHub[u][labelSize[u]] = i;
+				labelDist[u][labelSize[u]] = distU;
+				labelSize[u]++;
+
+				for (int arc = graph.offsets[u]; arc < graph.offsets[u+1]; arc++) {
+					int v = graph.targets[arc];
+					if (!space.isChecked(v)) {
+						int distanceThru = distU + graph.weights[arc];
+						if (distanceThru < space.dist(v)) {
+							space.reach(v, distanceThru, u);
+							space.vertexQ.offer(v, distanceThru);
+						}
+					}
+				}
+			}
+
+			for (int j = 0; j < labelSize[root]; j++)
+				rootDist[labelHub[root][j]] = Integer.MAX_VALUE;
+		}
+
+		// flatten
+		labelOffsets = new int[sizeV+1];
+		for (int v = 0; v < sizeV; v++)
+			labelOffsets[v+1] = labelOffsets[v] + labelSize[v];
+		hubs = new int[labelOffsets[sizeV]];
+		hubDist = new int[labelOffsets[sizeV]];
+		for (int v = 0; v < sizeV; v++) {
+			System.arraycopy(labelHub[v], 0, hubs, labelOffsets[v], labelSize[v]);
+			System.arraycopy(labelDist[v], 0, hubDist, labelOffsets[v], labelSize[v]);
+		}
+	}
+
+	/**
+	 * Shortest distance between two vertices, by merging their labels.
+	 * @param  source Id of the source vertex.
+	 * @param  target Id of the target vertex.
+	 * @return distance MAX_VALUE If no path.
+	 */
+	public int distanceById(int source, int target) {
+		int best = Integer.MAX_VALUE;
+		int i = labelOffsets[source], endI = labelOffsets[source+1];
+		int j = labelOffsets[target], endJ = labelOffsets[target+1];
+		while (i < endI && j < endJ) {
+			if (hubs[i] < hubs[j])
+				i++;
+			else if (hubs[i] > hubs[j])
+				j++;
+			else {
+				best = Math.min(best, hubDist[i] + hubDist[j]);
+				i++;
+				j++;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Shortest distance between two vertices, by key.
+	 * @param  k1 Key of the source vertex.
+	 * @param  k2 Key of the target vertex.
+	 * @return distance MAX_VALUE If no path, or either key not found.
+	 */
+	public int distance(K k1, K k2) {
+		int source = graph.idOf(k1);
+		int target = graph.idOf(k2);
+		if (source == -1 || target == -1)
+			return Integer.MAX_VALUE;
+		return distanceById(source, target);
+	}
+
+	/**
+	 * @param  v Id of vertex
+	 * @return size The number of hubs in the label of v.
+	 */
+	public int labelSize(int v) {
+		return labelOffsets[v+1] - labelOffsets[v];
+	}
+
+	/**
+	 * @return average The mean number of hubs per label.
+	 */
+	public double averageLabelSize() {
+		return (sizeV == 0) ? 0 : (double) hubs.length / sizeV;
+	}
+
+	/**
+	 * @return bytes The heap size of the labels and hub order.
+	 */
+	public long memoryBytes() {
+		return 4L*(order.length + hubRank.length + labelOffsets.length + hubs.length + hubDist.length);
+	}
+
+	/**
+	 * @return summary The size of the labeling: vertices, average label size and memory.
+	 */
+	@Override
+	public String toString() {
+		return String.format("HubLabels: %d vertices, average label size %.2f, %d bytes", sizeV, averageLabelSize(), memoryBytes());
+	}
+}
@@ -10,6 +10,16 @@ public class Importer {
 	private String filename = "filename.txt";
 	private ArrayList<String> fileList;
 	protected ArrayList<Integer> depotList, stationList, edgeList;
+	/** If true, files are read by MappedParser rather than Scanner */
+	protected boolean mapped = false;
+	/** Threads to parse an edge file with, if mapped; see MappedParser.parseEdges(threads) */
+	protected int parseThreads = 1;
+	/** Index of the graph whose nodes were imported last, as in importGraph(); -1 if imported by path */
+	protected int dataset = -1;
+	/** The keys of all nodes, for edgeValid(): bit k-keyMin of keyBits; or sortedKeys, if sparse */
+	private long[] keyBits;
+	private int keyMin;
+	private int[] sortedKeys;
 
 	/**
 	 * Default constructor
@@ -18,6 +28,24 @@ public class Importer {
 	}
 
 
+	/**
+	 * Set how the data files are read.
+	 * @param mapped If true, memory-map and parse them by MappedParser; false otherwise, by Scanner.
+	 */
+	public void setMapped(boolean mapped) {
+		this.mapped = mapped;
+	}
+
+
+	/**
+	 * Set the number of threads to parse the edge files with, when mapped.
+	 * @param parseThreads If more than 1, the file is parsed in that many chunks in parallel, then the edges passed on in file order.
+	 */
+	public void setParseThreads(int parseThreads) {
+		this.parseThreads = parseThreads;
+	}
+
+
 	public static void main(String[] args) throws Exception{
 		Importer sheep = new Importer();
 		sheep.importGraph(1);
@@ -29,25 +57,113 @@ public class Importer {
 	 * @param  single Which graph, of some size and difficulty, to import
 	 */
 	public void importGraph(int single) throws IOException {
-		int batch = (single-1)/3;
-		int nodeFile = (batch)*4 + (single-1)%3+1;
-		int edgeFile = (batch+1)*4;
-		// System.out.println(single + " " + nodeFile + " " + edgeFile);
-		importGraph(nodeFile, edgeFile);
+		importNodes(single);
+		importEdge(edgeFile(single));
+	}
+
+
+	/**
+	 * Import the nodes of a graph, indexed as in importGraph(); then its edges can be streamed by importEdges().
+	 * @param  single Which graph to import.
+	 */
+	public void importNodes(int single) throws IOException {
+		dataset = single;
+		listFile();
+		importNode(nodeFile(single));
+	}
+
+
+	/**
+	 * Stream the valid edges of a graph to a sink, without keeping them in edgeList; must be called after importNodes().
+	 * @param  single Which graph to import, as in importNodes().
+	 * @param  sink   Takes each valid edge, in file order.
+	 */
+	public void importEdges(int single, EdgeSink sink) throws IOException {
+		importEdge(edgeFile(single), sink);
 	}
 
 
 	/**
-	 * Import the nodes and edges needed for a graph.
-	 * @param  nodeFile    Index on the fileList specifying the node file.
-	 * @param  edgeFile    Index on the fileList specifying the edge file.
+	 * Import the whole edge file of a graph, its valid and invalid edges, as the topology shared by the graphs of its batch; see edgeFile().
+	 * @param  single Which graph, as in importGraph().
+	 * @return topology Of its edge file, frozen.
 	 */
-	private void importGraph(int nodeFile, int edgeFile) throws IOException{
+	public Topology importTopology(int single) throws IOException {
+		dataset = single;
 		listFile();
-		importNode(nodeFile);
+		return new Topology(readEdges(edgeFile(single)));
+	}
+
+
+	/**
+	 * Import a graph from data files by path, in the formats of those in fileList, e.g. made by GraphGenerator.
+	 * @param  locationFile Path of its locations, as "data/small-1/easy/locations.txt".
+	 * @param  edgeFile     Path of its edges, as "data/small-1/25-100.pyg".
+	 */
+	public void importGraph(String locationFile, String edgeFile) throws IOException {
+		importNodes(locationFile);
 		importEdge(edgeFile);
 	}
 
+
+	/**
+	 * Import the nodes of a graph by path, as importNodes(single).
+	 * @param  locationFile Path of its locations.
+	 */
+	public void importNodes(String locationFile) throws IOException {
+		dataset = -1;
+		importNode(locationFile);
+	}
+
+
+	/**
+	 * Stream the valid edges of a graph by path, as importEdges(single, sink); must be called after importNodes().
+	 * @param  edgeFile Path of its edges.
+	 * @param  sink     Takes each valid edge, in file order.
+	 */
+	public void importEdges(String edgeFile, EdgeSink sink) throws IOException {
+		importEdge(edgeFile, sink);
+	}
+
+
+	/**
+	 * Import a whole edge file by path as a topology, as importTopology(single).
+	 * @param  edgeFile Path of the edges.
+	 * @return topology Of the file, frozen.
+	 */
+	public Topology importTopology(String edgeFile) throws IOException {
+		return new Topology(readEdges(edgeFile));
+	}
+
+
+	/**
+	 * @param  single Index of a graph.
+	 * @return index On the fileList of its node file.
+	 */
+	private int nodeFile(int single) {
+		int batch = (single-1)/3;
+		return (batch)*4 + (single-1)%3+1;
+	}
+
+
+	/**
+	 * @param  single Index of a graph.
+	 * @return index On the fileList of its edge file, shared by the graphs of a batch.
+	 */
+	protected int edgeFile(int single) {
+		int batch = (single-1)/3;
+		return (batch+1)*4;
+	}
+
+	/**
+	 * @param  single Index of a graph.
+	 * @return paths Of its data files: the locations, then the edges.
+	 */
+	public String[] dataFiles(int single) throws IOException {
+		listFile();
+		return new String[]{file(nodeFile(single)), file(edgeFile(single))};
+	}
+
 	/**
 	 * Get the file paths for all the data to be read
 	 */
@@ -74,9 +190,28 @@ public class Importer {
 	 * @param  whichFile   Which file of the fileList to import from.
 	 */
 	protected void importNode(int whichFile) throws IOException {
+		importNode(file(whichFile));
+	}
+
+
+	/**
+	 * Import the nodes of a graph from a file by path, as importNode(whichFile).
+	 * @param  path Of the locations file.
+	 */
+	protected void importNode(String path) throws IOException {
 		depotList = new ArrayList<Integer>();
 		stationList = new ArrayList<Integer>();
-		sc = new Scanner(new FileReader(file(whichFile)));
+		if (mapped) {
+			MappedParser parser = new MappedParser(path);
+			parser.parseLocations();
+			for (int key : parser.depots)
+				depotList.add(key);
+			for (int key : parser.stations)
+				stationList.add(key);
+			indexNodes();
+			return;
+		}
+		sc = new Scanner(new FileReader(path));
 
 		while(sc.hasNext()) {
 			String str = sc.next();
@@ -90,6 +225,7 @@ public class Importer {
 			}
 		}
 		sc.close();
+		indexNodes();
 	}
 
 
@@ -99,22 +235,160 @@ public class Importer {
 	 * @param  whichFile Which file of the fileList to import from.
 	 */
 	protected void importEdge(int whichFile) throws IOException {
+		importEdge(file(whichFile));
+	}
+
+
+	/**
+	 * Import the valid edges of a graph from a file by path to edgeList, as importEdge(whichFile).
+	 * @param  path Of the edge file.
+	 */
+	protected void importEdge(String path) throws IOException {
 		edgeList = new ArrayList<Integer>();
-		sc = new Scanner(new FileReader(file(whichFile)));
+		importEdge(path, (k1, k2, weight) -> {
+			edgeList.add(k1);
+			edgeList.add(k2);
+			edgeList.add(weight);
+		});
+	}
+
+
+	/**
+	 * Import the edge of a graph whenever valid, passing each to a sink as it is read; must be called after importNode()
+	 * @param  whichFile Which file of the fileList to import from.
+	 * @param  sink      Takes each valid edge, in file order.
+	 */
+	protected void importEdge(int whichFile, EdgeSink sink) throws IOException {
+		importEdge(file(whichFile), sink);
+	}
+
+
+	/**
+	 * Import the valid edges of a graph from a file by path, passing each to a sink, as importEdge(whichFile, sink).
+	 * @param  path Of the edge file.
+	 * @param  sink Takes each valid edge, in file order.
+	 */
+	protected void importEdge(String path, EdgeSink sink) throws IOException {
+		GraphEvents.ImportEdges event = new GraphEvents.ImportEdges();
+		event.begin();
+		// the valid edges, counted on their way to the sink
+		int[] valid = new int[1];
+		int lines = readEdges(path, (k1, k2, weight) -> {
+			// if edge is valid, pass it on
+			if (edgeValid(k1, k2)) {
+				valid[0]++;
+				sink.edge(k1, k2, weight);
+			}
+		});
+		commit(event, path, lines, valid[0]);
+	}
+
+
+	/**
+	 * Read all edges of a file, valid or not, passing each to a sink.
+	 * @param  path Of the edge file.
+	 * @param  sink Takes each edge, in file order.
+	 * @return lines The number of edges read.
+	 */
+	private int readEdges(String path, EdgeSink sink) throws IOException {
+		if (mapped && parseThreads > 1) {
+			int[] edges = new MappedParser(path).parseEdges(parseThreads);
+			for (int i = 0; i < edges.length; i += 3)
+				sink.edge(edges[i], edges[i+1], edges[i+2]);
+			return edges.length/3;
+		}
+		if (mapped)
+			return new MappedParser(path).parseEdges(sink);
+		int lines = 0;
+		sc = new Scanner(new FileReader(path));
 		while(sc.hasNext()) {
 			int n1 = sc.nextInt();
 			String flush = sc.next();
 			int n2 = sc.nextInt();
 			int weight = sc.nextInt();
-			// if edge is valid, add to edgeList in triplets
-			if (edgeValid(n1, n2)) {
-				edgeList.add(n1);
-				edgeList.add(n2);
-				edgeList.add(weight);
-				// System.out.println(n1 + " - " + n2 + " " + weight);
-			}
+			sink.edge(n1, n2, weight);
+			lines++;
 		}
 		sc.close();
+		return lines;
+	}
+
+
+	/**
+	 * Commit the event of an edge file read, if recorded; see GraphEvents.
+	 * @param  event Begun before the file was read.
+	 * @param  path  Of the edge file.
+	 * @param  lines The number of edges read.
+	 * @param  edges The number passed on.
+	 */
+	private void commit(GraphEvents.ImportEdges event, String path, int lines, int edges) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.dataset = dataset;
+			event.file = path;
+			event.lines = lines;
+			event.edges = edges;
+			event.commit();
+		}
+	}
+
+
+	/**
+	 * Read all edges of a file, valid or not.
+	 * @param  whichFile Which file of the fileList to import from.
+	 * @return edges Triples: <node1>, <node2>, <weight>, in file order.
+	 */
+	private int[] readEdges(int whichFile) throws IOException {
+		return readEdges(file(whichFile));
+	}
+
+
+	/**
+	 * Read all edges of a file by path, valid or not.
+	 * @param  path Of the edge file.
+	 * @return edges Triples: <node1>, <node2>, <weight>, in file order.
+	 */
+	private int[] readEdges(String path) throws IOException {
+		GraphEvents.ImportEdges event = new GraphEvents.ImportEdges();
+		event.begin();
+		if (mapped) {
+			int[] edges = new MappedParser(path).parseEdges(parseThreads);
+			commit(event, path, edges.length/3, edges.length/3);
+			return edges;
+		}
+		// by Scanner, the same parser as readEdges(path, sink)
+		EdgeArray edges = new EdgeArray();
+		int lines = readEdges(path, edges);
+		commit(event, path, lines, lines);
+		return edges.toArray();
+	}
+
+
+	/**
+	 * Index the keys of depotList and stationList for edgeValid(): a bitmap over the range of keys, or if that is sparse, the keys sorted.
+	 */
+	private void indexNodes() {
+		int size = depotList.size() + stationList.size();
+		int[] keys = new int[size];
+		int i = 0;
+		for (int key : depotList)
+			keys[i++] = key;
+		for (int key : stationList)
+			keys[i++] = key;
+		Arrays.sort(keys);
+		long span = (size == 0) ? 0 : (long) keys[size-1] - keys[0] + 1;
+		// control: a bitmap of no more than 64 bits per key
+		if (span <= 64L*size + 64) {
+			keyMin = (size == 0) ? 0 : keys[0];
+			keyBits = new long[(int) ((span + 63) >>> 6)];
+			for (int key : keys)
+				keyBits[(key - keyMin) >>> 6] |= 1L << (key - keyMin);
+			sortedKeys = null;
+		}
+		else {
+			keyBits = null;
+			sortedKeys = keys;
+		}
 	}
 
 
@@ -125,13 +399,44 @@ public class Importer {
 	 * @return true If both nodes present; false otherwise.
 	 */
 	private boolean edgeValid(int k1, int k2) {
-		boolean has1 = (depotList.contains(k1) || stationList.contains(k1));
-		boolean has2 = (depotList.contains(k2) || stationList.contains(k2));
-		return (has1 && has2);
+		return (hasNode(k1) && hasNode(k2));
 	}
 
 
+	/**
+	 * @param  k Key of a node
+	 * @return true If in depotList or stationList; false otherwise.
+	 */
+	private boolean hasNode(int k) {
+		if (sortedKeys != null)
+			return Arrays.binarySearch(sortedKeys, k) >= 0;
+		long i = (long) k - keyMin;
+		return i >= 0 && i < 64L*keyBits.length && (keyBits[(int) (i >>> 6)] & (1L << i)) != 0;
+	}
+
 
+	/**
+	 * An EdgeSink that keeps the edges in a growing array of triples.
+	 */
+	private static class EdgeArray implements EdgeSink {
+		private int[] edges = new int[3*1024];
+		private int size = 0;
+
+		public void edge(int k1, int k2, int weight) {
+			if (size == edges.length)
+				edges = Arrays.copyOf(edges, 2*size);
+			edges[size++] = k1;
+			edges[size++] = k2;
+			edges[size++] = weight;
+		}
+
+		/**
+		 * @return edges Triples: <node1>, <node2>, <weight>, in the order taken.
+		 */
+		int[] toArray() {
+			return Arrays.copyOf(edges, size);
+		}
+	}
 
 
-}
\ No newline at end of file
+}
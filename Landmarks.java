@@ -0,0 +1,161 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * The ALT (A*, landmarks and triangle inequality) preprocessing of a CSRGraph.
+ * A few landmark vertices are picked by farthest-first selection, and the exact distance from each landmark to every vertex is stored in one int array.
+ * For any vertices v and t and landmark l, |d(l,t) - d(l,v)| <= d(v,t) by the triangle inequality; the largest such bound is the heuristic of the A* search.
+ * The graphs have no coordinates, so the landmarks are the only sense of direction towards the target.
+ */
+public class Landmarks<K> {
+	protected final CSRGraph<K> graph;
+	protected final int sizeV;
+	/** Ids of the landmark vertices */
+	protected final int[] landmarks;
+	/** Distance from landmark i to vertex v at index i*sizeV + v; MAX_VALUE if unreachable */
+	protected final int[] table;
+
+	/**
+	 * Constructor.
+	 * Picks the landmarks and computes their distance tables, one full Dijkstra's search per landmark.
+	 * @param  graph The frozen graph.
+	 * @param  count The number of landmarks; at most the number of vertices.
+	 */
+	Landmarks(CSRGraph<K> graph, int count) {
+		this.graph = graph;
+		sizeV = graph.getSizeV();
+		count = Math.min(count, sizeV);
+		landmarks = new int[count];
+		table = new int[count*sizeV];
+		SearchSpace space = graph.newSearchSpace(VertexQueue.DARY);
+
+		// the least distance from each vertex to the chosen landmarks
+		int[] nearest = new int[sizeV];
+		Arrays.fill(nearest, Integer.MAX_VALUE);
+		// start from the vertex farthest from vertex 0
+		int next = (sizeV == 0) ? -1 : farthestFrom(0, space);
+		for (int i = 0; i < count; i++) {
+			landmarks[i] = next;
+			graph.computeAllPaths(next, space);
+			for (int v = 0; v < sizeV; v++) {
+				int d = space.dist(v);
+				table[i*sizeV + v] = d;
+				nearest[v] = Math.min(nearest[v], d);
+			}
+			// farthest-first: the next landmark is the vertex farthest from all so far; unreached ones first
+			next = 0;
+			for (int v = 1; v < sizeV; v++) {
+				if (nearest[v] > nearest[next])
+					next = v;
+			}
+		}
+	}
+
+	/**
+	 * @return v The vertex farthest from a source, among those reachable.
+	 */
+	private int farthestFrom(int source, SearchSpace space) {
+		graph.computeAllPaths(source, space);
+		int farthest = source;
+		for (int v = 0; v < sizeV; v++) {
+			int d = space.dist(v);
+			if (d != Integer.MAX_VALUE && d > space.dist(farthest))
+				farthest = v;
+		}
+		return farthest;
+	}
+
+	/**
+	 * @return count The number of landmarks.
+	 */
+	public int size() {
+		return landmarks.length;
+	}
+
+	/**
+	 * @return landmarks The ids of the landmark vertices.
+	 */
+	public int[] getLandmarks() {
+		return landmarks.clone();
+	}
+
+	/**
+	 * @return bytes The heap size of the distance table and landmark ids.
+	 */
+	public long memoryBytes() {
+		return 4L*(table.length + landmarks.length);
+	}
+
+	/**
+	 * The A* heuristic: a lower bound on the distance between two vertices.
+	 * @param  v Id of a vertex.
+	 * @param  t Id of the target.
+	 * @return bound At most d(v,t); MAX_VALUE If some landmark reaches only one of them, i.e. there is no path.
+	 */
+	public int lowerBound(int v, int t) {
+		int bound = 0;
+		for (int i = 0; i < landmarks.length; i++) {
+			int dv = table[i*sizeV + v];
+			int dt = table[i*sizeV + t];
+			if (dv == Integer.MAX_VALUE || dt == Integer.MAX_VALUE) {
+				// v and t in different components
+				if (dv != dt)
+					return Integer.MAX_VALUE;
+				continue;
+			}
+			bound = Math.max(bound, Math.abs(dt - dv));
+		}
+		return bound;
+	}
+
+	/**
+	 * @param  queueType VertexQueue.PRIORITY, VertexQueue.DARY or VertexQueue.BUCKET
+	 * @return space A new SearchSpace for computePaths(); A* keys grow by up to twice an edge weight per step.
+	 */
+	public SearchSpace newSearchSpace(int queueType) {
+		return new SearchSpace(sizeV, queueType, 2*graph.maxWeight);
+	}
+
+	/**
+	 * A* search, with the landmark lower bound as heuristic.
+	 * The heuristic is consistent, so a vertex is final once checked and the search stops at the target, as Dijkstra's does.
+	 * @param  source Id of the source vertex.
+	 * @param  aim    Id of the target vertex.
+	 * @param  space  The search state to use, see newSearchSpace(); reset first. space.settled() is the number of vertices checked.
+	 * @return distance From source to aim; MAX_VALUE If no path.
+	 */
+	public int computePaths(int source, int aim, SearchSpace space) {
+		space.reset();
+		int bound = lowerBound(source, aim);
+		// control: different components
+		if (bound == Integer.MAX_VALUE)
+			return Integer.MAX_VALUE;
+		space.reach(source, 0, -1);
+		space.vertexQ.offer(source, bound);
+
+		while (!space.vertexQ.isEmpty()) {
+			int u = space.vertexQ.poll();
+			space.check(u);
+			if (u == aim)
+				break;
+
+			int distU = space.dist(u);
+			for (int arc = graph.offsets[u]; arc < graph.offsets[u+1]; arc++) {
+				int v = graph.targets[arc];
+				if (!space.isChecked(v)) {
+					int distanceThru = distU + graph.weights[arc];
+					if (Stats.ENABLED)
+						space.stats.relaxations++;
+					if (distanceThru < space.dist(v)) {
+						space.reach(v, distanceThru, u);
+						// key = distance so far + lower bound of the rest
+						space.vertexQ.offer(v, distanceThru + lowerBound(v, aim));
+					}
+				}
+			}
+		}
+		return space.dist(aim);
+	}
+}
@@ -0,0 +1,337 @@
+import java.util.*;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A parser of the data files that memory-maps a file and reads its ASCII digits straight from the mapped bytes into int arrays, with no allocation per token.
+ * Reads the edge files (.pyg), a line "n1 - n2 w" per edge, and the location files, a line "depot N" or "station N" per vertex; blank lines are skipped.
+ * A malformed line fails the whole parse with an IOException giving the line number, its byte offset in the file, and its text.
+ * parseEdges(threads) splits the file into line-aligned byte ranges and parses them in parallel, with the same result.
+ */
+public class MappedParser {
+	protected final String filename;
+	private final MappedByteBuffer buffer;
+	/** The byte range parsed: the whole file, or a chunk of it */
+	private final int start, limit;
+	/** The cursor, and the byte offset of the start of its line */
+	private int pos, lineStart;
+	/** Edges as triples: <node1>, <node2>, <weight>; set by parseEdges() */
+	protected int[] edges;
+	private int size;
+	/** Keys of depots and of stations, in file order; set by parseLocations() */
+	protected int[] depots, stations;
+
+	/**
+	 * Constructor.
+	 * Map the file read-only; the mapping outlives the closed channel.
+	 * @param  filename Path of the file.
+	 * @throws IOException If the file cannot be read, or is 2GB or larger.
+	 */
+	MappedParser(String filename) throws IOException {
+		this.filename = filename;
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size >= Integer.MAX_VALUE)
+				throw new IOException(filename + ": too large to map, " + size + " bytes");
+			start = 0;
+			limit = (int) size;
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+	}
+
+	/**
+	 * Constructor, of a parser of a chunk of the file of another; the mapping is shared, and only read.
+	 * @param  whole The parser of the file.
+	 * @param  start Byte offset of the first line of the chunk.
+	 * @param  limit Byte offset just after its last line.
+	 */
+	private MappedParser(MappedParser whole, int start, int limit) {
+		filename = whole.filename;
+		buffer = whole.buffer;
+		this.start = start;
+		this.limit = limit;
+	}
+
+	/**
+	 * Report the throughput of parseEdges() on a file, by number of threads.
+	 * @param  args The edge file, then the largest number of threads, 8 if not given.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.out.println("Usage: java MappedParser <file.pyg> [threads]");
+			return;
+		}
+		int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : 8;
+		MappedParser parser = new MappedParser(args[0]);
+		// warm up the compiler
+		for (int run = 0; run < 20; run++)
+			parser.parseEdges(2);
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			// the best of several runs
+			long best = Long.MAX_VALUE;
+			int edges = 0;
+			for (int run = 0; run < 10; run++) {
+				long start = System.nanoTime();
+				edges = parser.parseEdges(threads).length / 3;
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			System.out.println(String.format("%d threads: %.1f MB/s, %.0f edges/s (%d edges, %.2f ms)",
+				threads, parser.limit/1e6/(best/1e9), edges/(best/1e9), edges, best/1e6));
+		}
+	}
+
+
+	/**
+	 * Parse the file as edges, a line "n1 - n2 w" each.
+	 * @return edges The triples <node1>, <node2>, <weight>, in file order.
+	 * @throws IOException On the first malformed line.
+	 */
+	public int[] parseEdges() throws IOException {
+		// about 16 bytes per line or more, the array grows if not
+		edges = new int[3*((limit - start)/16 + 1)];
+		size = 0;
+		parseEdges((k1, k2, weight) -> {
+			if (size + 3 > edges.length)
+				edges = Arrays.copyOf(edges, 2*edges.length);
+			edges[size++] = k1;
+			edges[size++] = k2;
+			edges[size++] = weight;
+		});
+		edges = Arrays.copyOf(edges, size);
+		return edges;
+	}
+
+	/**
+	 * Parse the file as edges, passing each to a sink as it is read, without keeping them.
+	 * @param  sink Takes each edge, in file order.
+	 * @return count The number of edges.
+	 * @throws IOException On the first malformed line; the edges before it are passed on.
+	 */
+	public int parseEdges(EdgeSink sink) throws IOException {
+		int count = 0;
+		rewind();
+		while (nextLine()) {
+			int k1 = readInt("node");
+			skipSpaces();
+			if (pos == limit || buffer.get(pos) != '-')
+				fail("expected '-' between nodes");
+			pos++;
+			int k2 = readInt("node");
+			int weight = readInt("weight");
+			endLine();
+			sink.edge(k1, k2, weight);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Parse the file as edges, in parallel: split it into a chunk per thread at line ends, parse each into its own array, and join them in file order.
+	 * The result equals that of parseEdges(); adding the edges to a graph in order, by Graph.addEdge(), keeps its rules for duplicate and shorter edges.
+	 * @param  threads The number of worker threads, and chunks.
+	 * @return edges The triples <node1>, <node2>, <weight>, in file order.
+	 * @throws IOException On the first malformed line of the file.
+	 */
+	public int[] parseEdges(int threads) throws IOException {
+		if (threads <= 1)
+			return parseEdges();
+		// chunk boundaries, each just after a line end
+		int[] bounds = new int[threads+1];
+		bounds[threads] = limit;
+		for (int i = 1; i < threads; i++) {
+			int at = Math.max(bounds[i-1], (int) ((long) limit*i/threads));
+			while (at > 0 && at < limit && buffer.get(at-1) != '\n')
+				at++;
+			bounds[i] = at;
+		}
+		ArrayList<Callable<int[]>> chunks = new ArrayList<Callable<int[]>>();
+		for (int i = 0; i < threads; i++) {
+			MappedParser chunk = new MappedParser(this, bounds[i], bounds[i+1]);
+			chunks.add(() -> chunk.parseEdges());
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			int size = 0;
+			ArrayList<int[]> parts = new ArrayList<int[]>();
+			// in file order, so the first error thrown is of the first malformed line
+			for (Future<int[]> part : pool.invokeAll(chunks)) {
+				parts.add(part.get());
+				size += parts.get(parts.size()-1).length;
+			}
+			edges = new int[size];
+			int at = 0;
+			for (int[] part : parts) {
+				System.arraycopy(part, 0, edges, at, part.length);
+				at += part.length;
+			}
+			return edges;
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Parse of " + filename + " interrupted");
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Parse the file as locations, a line "depot N" or "station N" each; sets depots and stations.
+	 * @throws IOException On the first malformed line.
+	 */
+	public void parseLocations() throws IOException {
+		int[] depots = new int[16], stations = new int[16];
+		int sizeD = 0, sizeS = 0;
+		rewind();
+		while (nextLine()) {
+			if (readWord("depot")) {
+				if (sizeD == depots.length)
+					depots = Arrays.copyOf(depots, 2*sizeD);
+				depots[sizeD++] = readInt("depot");
+			}
+			else if (readWord("station")) {
+				if (sizeS == stations.length)
+					stations = Arrays.copyOf(stations, 2*sizeS);
+				stations[sizeS++] = readInt("station");
+			}
+			else
+				fail("expected 'depot' or 'station'");
+			endLine();
+		}
+		this.depots = Arrays.copyOf(depots, sizeD);
+		this.stations = Arrays.copyOf(stations, sizeS);
+	}
+
+
+
+
+	private void rewind() {
+		pos = start;
+		lineStart = start;
+	}
+
+	/**
+	 * Move to the start of the next line that is not blank.
+	 * @return true If there is one; false at the end of the file.
+	 */
+	private boolean nextLine() {
+		while (true) {
+			lineStart = pos;
+			skipSpaces();
+			if (pos == limit)
+				return false;
+			if (buffer.get(pos) != '\n')
+				return true;
+			pos++;
+		}
+	}
+
+	/**
+	 * Skip spaces, tabs and carriage returns, but not the end of the line.
+	 */
+	private void skipSpaces() {
+		while (pos < limit) {
+			byte b = buffer.get(pos);
+			if (b != ' ' && b != '\t' && b != '\r')
+				return;
+			pos++;
+		}
+	}
+
+	private boolean isSpace(int at) {
+		if (at == limit)
+			return true;
+		byte b = buffer.get(at);
+		return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	}
+
+	/**
+	 * Read an integer after optional spaces, with an optional minus sign; it must end at a space or the end of the line.
+	 * @param  what Name of the field, for the error message.
+	 * @return value Of the integer.
+	 * @throws IOException If no integer, or out of the int range.
+	 */
+	private int readInt(String what) throws IOException {
+		skipSpaces();
+		boolean negative = pos < limit && buffer.get(pos) == '-';
+		int start = negative ? pos+1 : pos;
+		long value = 0;
+		int at = start;
+		while (at < limit) {
+			int digit = buffer.get(at) - '0';
+			if (digit < 0 || digit > 9)
+				break;
+			value = 10*value + digit;
+			if (value > (long) Integer.MAX_VALUE + 1)
+				fail(what + " out of int range");
+			at++;
+		}
+		if (at == start || !isSpace(at))
+			fail("expected " + what);
+		if (negative)
+			value = -value;
+		if (value > Integer.MAX_VALUE)
+			fail(what + " out of int range");
+		pos = at;
+		return (int) value;
+	}
+
+	/**
+	 * Read a word, if it is next and followed by a space.
+	 * @param  word In ASCII.
+	 * @return true If read; false otherwise, the cursor unmoved.
+	 */
+	private boolean readWord(String word) {
+		int n = word.length();
+		if (pos + n > limit || !isSpace(pos + n))
+			return false;
+		for (int i = 0; i < n; i++) {
+			if (buffer.get(pos+i) != word.charAt(i))
+				return false;
+		}
+		pos += n;
+		return true;
+	}
+
+	/**
+	 * Allow only spaces to the end of the line, and move past it.
+	 */
+	private void endLine() throws IOException {
+		skipSpaces();
+		if (pos < limit && buffer.get(pos) != '\n')
+			fail("unexpected trailing characters");
+		if (pos < limit)
+			pos++;
+	}
+
+	/**
+	 * @throws IOException For the current line, with its number, byte offset and text.
+	 */
+	private void fail(String reason) throws IOException {
+		// the line number, counted only on failure
+		int line = 1;
+		for (int i = 0; i < lineStart; i++) {
+			if (buffer.get(i) == '\n')
+				line++;
+		}
+		int end = lineStart;
+		while (end < limit && end - lineStart < 80 && buffer.get(end) != '\n' && buffer.get(end) != '\r')
+			end++;
+		byte[] text = new byte[end - lineStart];
+		for (int i = 0; i < text.length; i++)
+			text[i] = buffer.get(lineStart + i);
+		throw new IOException(String.format("%s:%d: malformed line at byte %d: %s: \"%s\"",
+			filename, line, lineStart, reason, new String(text, "US-ASCII")));
+	}
+}
@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * @author Wah Loon Keng
@@ -7,13 +8,29 @@ import java.util.*;
  * The Nearest-Neighbor Graph class; is essentially the Graph class, except with special find-path method.
  */
 public class NNGraph<K, E> extends Graph<K, E> {
+	/** Modes of pathReduce(): pairwise sublist checks per depot; one pass over the forest the paths form; or the sublist checks of all depots in parallel */
+	public static final int REDUCE_SUBLIST = 0, REDUCE_FOREST = 1, REDUCE_PARALLEL = 2;
 	protected ArrayList<K> stationsToCompute, tmpPath;
+	/** Keys of all stations, in the order added; stationsToCompute is consumed by computeAllStations() */
+	protected ArrayList<K> stations;
 	protected ArrayList<ArrayList<K>> listOfPaths, buffer, reducedPaths;
+	/** If true, computeAllStations() grows one shortest-path forest from all depots instead of searching from each station */
+	protected boolean multiSource = false;
+	/** The mode of pathReduce(), REDUCE_SUBLIST, REDUCE_FOREST or REDUCE_PARALLEL */
+	protected int reduceMode = REDUCE_SUBLIST;
+	/** The forest kept up to date by the dynamic mode; null if not in it */
+	protected DynamicNearestDepot<K, E> dynamic;
+	/** Index of the graph data, for the events of this graph; -1 if not known, see GraphEvents */
+	protected int dataset = -1;
+	/** Vertices checked by the searches of the current computeAllStations(); and calls of findClosestDepot(), for sampling its events */
+	protected long searchSettled;
+	private int depotSearches;
 
 	/** Default constructor */
 	NNGraph() {
 		super();
 		stationsToCompute = new ArrayList<K>();
+		stations = new ArrayList<K>();
 		listOfPaths = new ArrayList<ArrayList<K>>();
 		reducedPaths = new ArrayList<ArrayList<K>>();
 		buffer = new ArrayList<ArrayList<K>>();
@@ -29,8 +46,10 @@ public class NNGraph<K, E> extends Graph<K, E> {
 	@Override
 	public boolean addNode(K k, E e, int type) {
 		boolean added = super.addNode(k, e, type);
-		if (added && type == -1)
+		if (added && type == -1) {
+			stations.add(k);
 			addToCompute(k);
+		}
 		return added;
 	}
 	/**
@@ -42,6 +61,49 @@ public class NNGraph<K, E> extends Graph<K, E> {
 		return stationsToCompute.add(k);
 	}
 
+	/**
+	 * Set the index of the graph data, carried by the events of this graph; see GraphEvents.
+	 * @param dataset As in Importer.importGraph(); -1 if not known.
+	 */
+	public void setDataset(int dataset) {
+		this.dataset = dataset;
+	}
+
+	/**
+	 * Set the mode of computeAllStations().
+	 * The paths differ: searching from each station drops every station checked before the closest depot is reached, lying on the path or not, and so records fewer paths;
+	 * the forest only skips the stations lying on a path already recorded, so may record more paths, e.g. 6 instead of 5 of graph 2, 24 instead of 19 of graph 15, after pathReduce().
+	 * Either way each path is a shortest path from its station to a closest depot; with the forest, every station reaching a depot also lies on some path.
+	 * @param multiSource If true, run a single Dijkstra's search seeded at all depots; if false, search from each station in turn.
+	 */
+	public void setMultiSource(boolean multiSource) {
+		this.multiSource = multiSource;
+	}
+
+	/**
+	 * Set the algorithm of pathReduce(); all give the same reducedPaths, in the same order.
+	 * REDUCE_FOREST takes time linear in the total length of the paths, but needs the paths to form a forest, i.e. each vertex has the same next vertex on all paths through it; as they do when computed by the multi-source mode. Otherwise it falls back to REDUCE_SUBLIST.
+	 * REDUCE_PARALLEL reduces the paths of each depot as REDUCE_SUBLIST does, the depots in parallel on the common fork-join pool.
+	 * @param reduceMode REDUCE_SUBLIST (default), REDUCE_FOREST or REDUCE_PARALLEL
+	 */
+	public void setReduceMode(int reduceMode) {
+		if (reduceMode < REDUCE_SUBLIST || reduceMode > REDUCE_PARALLEL)
+			throw new IllegalArgumentException("Unknown reduce mode " + reduceMode);
+		this.reduceMode = reduceMode;
+	}
+
+	/**
+	 * Switch to the dynamic mode: the multi-source computeAllStations() reads the nearest depots off a forest that is repaired, not grown again, after each change.
+	 * Change the graph through the returned forest, then call rerunNN().
+	 * @return forest The nearest-depot forest of this graph.
+	 */
+	public DynamicNearestDepot<K, E> setDynamic() {
+		multiSource = true;
+		if (dynamic == null)
+			dynamic = new DynamicNearestDepot<K, E>(this);
+		return dynamic;
+	}
+
 
 
 
@@ -50,8 +112,25 @@ public class NNGraph<K, E> extends Graph<K, E> {
 	 * @return The paths in a Nearest-Neighbor Graph.
 	 */
 	public ArrayList<ArrayList<K>> runNN() {
+		long start = Stats.start();
 		computeAllStations();
-		return pathReduce();
+		stats.stop(Stats.COMPUTE, start);
+		start = Stats.start();
+		ArrayList<ArrayList<K>> paths = pathReduce();
+		stats.stop(Stats.REDUCE, start);
+		return paths;
+	}
+
+	/**
+	 * Run the Nearest-Neighbor algorithm again, e.g. after setWeight(); all stations are computed again, and the previous paths dropped.
+	 * @return The paths in a Nearest-Neighbor Graph, by the current weights.
+	 */
+	public ArrayList<ArrayList<K>> rerunNN() {
+		stationsToCompute = new ArrayList<K>(stations);
+		listOfPaths = new ArrayList<ArrayList<K>>();
+		buffer = new ArrayList<ArrayList<K>>();
+		reducedPaths = new ArrayList<ArrayList<K>>();
+		return runNN();
 	}
 
 
@@ -88,6 +167,31 @@ public class NNGraph<K, E> extends Graph<K, E> {
 	 * @return reducedPaths i.e. The nearest neighbors paths: the reduced paths optimized from many possibly overlapping shortest paths.
 	 */
 	public ArrayList<ArrayList<K>> pathReduce() {
+		GraphEvents.PathReduce event = new GraphEvents.PathReduce();
+		event.begin();
+		int paths = listOfPaths.size();
+		reducePaths();
+		event.end();
+		if (event.shouldCommit()) {
+			event.dataset = dataset;
+			event.mode = reduceMode;
+			event.paths = paths;
+			event.reducedPaths = reducedPaths.size();
+			event.commit();
+		}
+		return reducedPaths;
+	}
+
+
+	/**
+	 * The body of pathReduce(), by reduceMode.
+	 * @return reducedPaths The nearest neighbors paths.
+	 */
+	protected ArrayList<ArrayList<K>> reducePaths() {
+		if (reduceMode == REDUCE_FOREST && forestReduce())
+			return reducedPaths;
+		if (reduceMode == REDUCE_PARALLEL)
+			return parallelReduce();
 		while(!listOfPaths.isEmpty()){
 			pollPathsOfSameDepot();
 			dumpSublist();
@@ -101,6 +205,84 @@ public class NNGraph<K, E> extends Graph<K, E> {
 
 
 
+	/**
+	 * The forest version of pathReduce(), with the same result.
+	 * If each vertex has the same next vertex on all paths through it, a path contains another exactly if it passes through the other's first station, since from there on both follow the same next vertices.
+	 * So a path is redundant if its first station is not first on some path, or it is a duplicate; the others are added to reducedPaths grouped by depot, as pollPathsOfSameDepot() and insertToBuffer() order them.
+	 * @return true If reduced, and listOfPaths emptied; false If the paths do not form a forest, and nothing is changed.
+	 */
+	protected boolean forestReduce() {
+		// the next vertex of each vertex on the paths; null at the depot
+		HashMap<K, K> next = new HashMap<K, K>();
+		for (ArrayList<K> path : listOfPaths) {
+			for (int i = 0; i < path.size(); i++) {
+				K v = path.get(i);
+				K nextV = (i+1 < path.size()) ? path.get(i+1) : null;
+				if (!next.containsKey(v))
+					next.put(v, nextV);
+				else if (!Objects.equals(next.get(v), nextV))
+					return false;
+			}
+		}
+		// vertices after the first on some path
+		HashSet<K> covered = new HashSet<K>(next.values());
+
+		// by depot in order of first appearance; within, the last path from each uncovered station
+		LinkedHashMap<K, LinkedHashMap<K, ArrayList<K>>> groups = new LinkedHashMap<K, LinkedHashMap<K, ArrayList<K>>>();
+		for (ArrayList<K> path : listOfPaths) {
+			if (!groups.containsKey(endPtOf(path)))
+				groups.put(endPtOf(path), new LinkedHashMap<K, ArrayList<K>>());
+			// isolated stations and lone depots, removed as by removeIsolated()
+			if (path.size() < 2 || covered.contains(path.get(0)))
+				continue;
+			LinkedHashMap<K, ArrayList<K>> group = groups.get(endPtOf(path));
+			// a duplicate replaces the earlier path, and moves to the end
+			group.remove(path.get(0));
+			group.put(path.get(0), path);
+		}
+		for (LinkedHashMap<K, ArrayList<K>> group : groups.values()) {
+			// decreasing length; of equal ones, the later added first
+			ArrayList<ArrayList<K>> paths = new ArrayList<ArrayList<K>>(group.values());
+			Collections.reverse(paths);
+			Collections.sort(paths, (a, b) -> b.size() - a.size());
+			reducedPaths.addAll(paths);
+		}
+		listOfPaths = new ArrayList<ArrayList<K>>();
+		removeIsolated();
+		return true;
+	}
+
+
+	/**
+	 * The parallel version of pathReduce(), with the same result.
+	 * Bucket listOfPaths by depot in one pass, in order of first appearance as pollPathsOfSameDepot() does; reduce the buckets in parallel; and add them to reducedPaths in bucket order.
+	 * @return reducedPaths The nearest neighbors paths.
+	 */
+	protected ArrayList<ArrayList<K>> parallelReduce() {
+		LinkedHashMap<K, ArrayList<ArrayList<K>>> byDepot = new LinkedHashMap<K, ArrayList<ArrayList<K>>>();
+		for (ArrayList<K> path : listOfPaths) {
+			K depotKey = endPtOf(path);
+			if (!byDepot.containsKey(depotKey))
+				byDepot.put(depotKey, new ArrayList<ArrayList<K>>());
+			byDepot.get(depotKey).add(path);
+		}
+		listOfPaths = new ArrayList<ArrayList<K>>();
+
+		ArrayList<ArrayList<ArrayList<K>>> buckets = new ArrayList<ArrayList<ArrayList<K>>>(byDepot.values());
+		// each bucket sorted and reduced on its own buffer; the buffer field is left alone
+		IntStream.range(0, buckets.size()).parallel().forEach(i -> {
+			ArrayList<ArrayList<K>> bucketBuffer = new ArrayList<ArrayList<K>>();
+			for (ArrayList<K> path : buckets.get(i))
+				insertToBuffer(bucketBuffer, path);
+			buckets.set(i, dumpSublist(bucketBuffer));
+		});
+		for (ArrayList<ArrayList<K>> reduced : buckets)
+			reducedPaths.addAll(reduced);
+		removeIsolated();
+		return reducedPaths;
+	}
+
+
 	/**
 	 * Remove empty paths, i.e. isolated station, from reducedPaths
 	 */
@@ -151,6 +333,15 @@ public class NNGraph<K, E> extends Graph<K, E> {
 	 * @param newPath The path to be inserted
 	 */
 	private void insertToBuffer(ArrayList<K> newPath) {
+		insertToBuffer(buffer, newPath);
+	}
+
+	/**
+	 * Insert a path to a buffer of paths of the same endpoint, see insertToBuffer(newPath).
+	 * @param buffer  The paths, in decreasing list length.
+	 * @param newPath The path to be inserted
+	 */
+	private void insertToBuffer(ArrayList<ArrayList<K>> buffer, ArrayList<K> newPath) {
 		int newSize = newPath.size();
 		int index = 0;
 		for (ArrayList<K> tmp : buffer) {
@@ -168,7 +359,17 @@ public class NNGraph<K, E> extends Graph<K, E> {
 	 * @return buffer The reduced buffer with no redundant paths.
 	 */
 	protected ArrayList<ArrayList<K>> dumpSublist() {
+		return dumpSublist(buffer);
+	}
+
+	/**
+	 * Reduce a buffer of paths of the same endpoint, see dumpSublist().
+	 * @param  buffer The paths, in decreasing list length.
+	 * @return buffer The same buffer, reduced.
+	 */
+	protected ArrayList<ArrayList<K>> dumpSublist(ArrayList<ArrayList<K>> buffer) {
 		int index = 0;
+		long checks = 0;
 
 		while (!buffer.isEmpty()) {
 			// the next biggest path
@@ -182,6 +383,7 @@ public class NNGraph<K, E> extends Graph<K, E> {
 				// if is sublist, remove from buffer
 				if (isSublist(currentPath, itr.next()))
 					itr.remove();					
+				checks++;
 			}
 			// repeat for next unremoved path
 			index++;
@@ -190,6 +392,8 @@ public class NNGraph<K, E> extends Graph<K, E> {
 				break;
 			
 		}
+		if (Stats.ENABLED)
+			stats.countSublists(checks);
 
 		return buffer;
 	}
@@ -232,7 +436,7 @@ public class NNGraph<K, E> extends Graph<K, E> {
 	 * @return true If indeed; false otherwise.
 	 */
 	private boolean sameEnd(ArrayList<K> path, K depotKey) {
-		return (endPtOf(path) == depotKey);
+		return Objects.equals(endPtOf(path), depotKey);
 	}
 
 	/**
@@ -258,8 +462,38 @@ public class NNGraph<K, E> extends Graph<K, E> {
 	 * @return listOfPaths The list of all short paths from station to the closest depot.
 	 */
 	public ArrayList<ArrayList<K>> computeAllStations() {
+		GraphEvents.ComputeAllStations event = new GraphEvents.ComputeAllStations();
+		event.begin();
+		int stationCount = stationsToCompute.size();
+		searchSettled = 0;
+		if (multiSource)
+			computeFromAllDepots();
+		else
+			computeFromEachStation();
+		event.end();
+		if (event.shouldCommit()) {
+			event.dataset = dataset;
+			event.vertices = getSizeV();
+			event.edges = getSizeE();
+			event.stations = stationCount;
+			event.settled = searchSettled;
+			event.paths = listOfPaths.size();
+			event.commit();
+		}
+		return listOfPaths;
+	}
+
+
+	/**
+	 * The version of computeAllStations() searching from each station in turn, see there.
+	 * Runs on the frozen CSR view if frozenSearch is set, with the same paths.
+	 * @return listOfPaths The list of all short paths from station to the closest depot.
+	 */
+	protected ArrayList<ArrayList<K>> computeFromEachStation() {
 		// reset
 		listOfPaths = new ArrayList<ArrayList<K>>();
+		if (frozenSearch)
+			return computeFrozenFromEachStation();
 
 		while (!stationsToCompute.isEmpty()) {
 			K sourceKey = stationsToCompute.get(0);
@@ -273,6 +507,130 @@ public class NNGraph<K, E> extends Graph<K, E> {
 	}
 
 
+	/**
+	 * computeFromEachStation() on the frozen CSR view: CSRGraph.closestDepot() in place of findClosestDepot(), and the stations checked by each search dropped from stationsToCompute, as typeTask() does.
+	 * @return listOfPaths The list of all short paths from station to the closest depot.
+	 */
+	protected ArrayList<ArrayList<K>> computeFrozenFromEachStation() {
+		CSRGraph<K> csr = freeze();
+		SearchSpace space = frozenSpace();
+
+		while (!stationsToCompute.isEmpty()) {
+			int source = getNode(stationsToCompute.get(0)).getId();
+			int closestDepot = csr.closestDepot(source, space);
+			searchSettled += space.settled();
+			// the source and the stations checked before the depot, in order
+			stationsToCompute.removeIf(k -> space.isChecked(getNode(k).getId()));
+			// isolated station gets an empty path, same as pathToDepot(null)
+			ArrayList<K> path = (closestDepot == -1) ? new ArrayList<K>() : csr.traceKeys(closestDepot, space);
+			Collections.reverse(path);
+			addPathToList(path);
+		}
+
+		return listOfPaths;
+	}
+
+
+	/**
+	 * The multi-source version of computeAllStations().
+	 * Grow a single shortest-path forest rooted at all depots; then, for each station in stationsToCompute not yet visited by a previous path, follow the forest to its closest depot and add the path to listOfPaths.
+	 * Runs on the frozen CSR view if frozenSearch is set, or on the dynamic forest if set.
+	 * @return listOfPaths The list of all short paths from station to the closest depot.
+	 */
+	protected ArrayList<ArrayList<K>> computeFromAllDepots() {
+		// reset
+		listOfPaths = new ArrayList<ArrayList<K>>();
+		CSRGraph<K> csr = null;
+		SearchSpace space = null;
+		// the dynamic forest is already grown
+		if (dynamic == null && frozenSearch) {
+			csr = freeze();
+			space = frozenSpace();
+			csr.growDepotForest(space);
+			searchSettled += space.settled();
+		}
+		else if (dynamic == null)
+			growDepotForest();
+
+		HashSet<K> visited = new HashSet<K>();
+		for (K sourceKey : stationsToCompute) {
+			// skip the stations already lying on a recorded path
+			if (visited.contains(sourceKey))
+				continue;
+			ArrayList<K> path;
+			if (dynamic != null)
+				path = dynamic.pathToDepot(sourceKey);
+			else if (frozenSearch) {
+				int station = getNode(sourceKey).getId();
+				// isolated station gets an empty path
+				path = (space.dist(station) == Integer.MAX_VALUE) ? new ArrayList<K>() : csr.traceKeys(station, space);
+			}
+			else
+				path = pathFromStation(getNode(sourceKey));
+			visited.addAll(path);
+			addPathToList(path);
+		}
+		// all stations are computed
+		stationsToCompute.clear();
+
+		return listOfPaths;
+	}
+
+
+	/**
+	 * Dijkstra's search seeded with every depot at distance 0, run until all reachable vertices are checked.
+	 * Afterwards each vertex's minDistance is the distance to its closest depot, and previous points one step closer to that depot.
+	 */
+	protected void growDepotForest() {
+		VertexQueue vertexQ = newQueue();
+		// resets for each method run, and seed all depots
+		for (Node<K,E> v : listV) {
+			v.checked = false;
+			v.previous = null;
+			v.minDistance = Integer.MAX_VALUE;
+			if (v.type() == 1) {
+				v.minDistance = 0;
+				vertexQ.offer(v.getId(), 0);
+				if (Stats.ENABLED)
+					stats.inserts++;
+			}
+		}
+		if (Stats.ENABLED) {
+			stats.searches++;
+			stats.resets += getSizeV();
+		}
+
+		while(!vertexQ.isEmpty()) {
+			Node<K, E> u = nodeAt(vertexQ.poll());
+			u.check();
+			searchSettled++;
+			if (Stats.ENABLED)
+				countCheck();
+			relax(u, vertexQ);
+		}
+	}
+
+
+	/**
+	 * Called after growDepotForest().
+	 * Record the path from a station to its closest depot in terms of key of the nodes, by following previous up the forest.
+	 * @param station The station vertex to trace from.
+	 * @return path The path from station to the closest depot; empty If station is isolated from all depots.
+	 */
+	protected ArrayList<K> pathFromStation(Node<K,E> station) {
+		tmpPath = new ArrayList<K>();
+		// isolated station, same as pathToDepot(null)
+		if (station.minDistance == Integer.MAX_VALUE)
+			return tmpPath;
+		Node<K,E> tmp = station;
+		while(tmp != null) {
+			tmpPath.add(tmp.getKey());
+			tmp = tmp.previous;
+		}
+		return tmpPath;
+	}
+
+
 	/**
 	 * Given a source station, perform Dijkstra's search and terminate at the first (closest) depot found.
 	 * Dijkstra's shortest path algorithm
@@ -281,7 +639,14 @@ public class NNGraph<K, E> extends Graph<K, E> {
 	 * @return  closestDepot The closest depot to this station
 	 */
 	protected Node<K,E> findClosestDepot(Node<K,E> station) {
-		PriorityQueue<Node<K,E>> vertexQ = new PriorityQueue<Node<K,E>>();
+		// one in GraphEvents.SAMPLE searches is recorded
+		GraphEvents.FindClosestDepot event = null;
+		if (++depotSearches % GraphEvents.SAMPLE == 0) {
+			event = new GraphEvents.FindClosestDepot();
+			event.begin();
+		}
+		int settled = 0;
+		VertexQueue vertexQ = newQueue();
 		// resets for each method run		
 		for (Node<K,E> v : listV) {
 			v.checked = false;
@@ -290,34 +655,36 @@ public class NNGraph<K, E> extends Graph<K, E> {
 		}
 		// initialize
 		station.minDistance = 0;
-		vertexQ.add(station);
+		vertexQ.offer(station.getId(), 0);
+		if (Stats.ENABLED)
+			countSearch();
 		Node<K, E> u = new Node<K,E>();
 
 		while(!vertexQ.isEmpty()) {
-			u = vertexQ.poll();
+			u = nodeAt(vertexQ.poll());
 			u.check();
+			settled++;
+			if (Stats.ENABLED)
+				countCheck();
 			// control: compute until the first (closest) depot
 			if (typeTask(u))
 				break;
 
-			// do for each adjacent vertex
-			for (Edge<K,E> tmp : u.adj) {
-				// the other end of edge
-				Node<K, E> v = tmp.target;
-				if (!v.checked) {
-					int distanceThru = u.minDistance + tmp.weight;
-					if (distanceThru < v.minDistance) {
-						// update minDistance & previous
-						vertexQ.remove(v);
-						v.minDistance = distanceThru;
-						v.previous = u;
-						vertexQ.add(v);
-					}
-				}
-			}
+			relax(u, vertexQ);
 		}
 
 		// System.out.println("\nshortest dist bet " + station.getKey() + " and " + aim.getKey() + " is " + aim.minDistance);
+		searchSettled += settled;
+		if (event != null) {
+			event.end();
+			if (event.shouldCommit()) {
+				event.dataset = dataset;
+				event.station = String.valueOf(station.getKey());
+				event.settled = settled;
+				event.found = (u.type() == 1);
+				event.commit();
+			}
+		}
 		// return the first nearest depot; ensure is indeed a depot
 		if (u.type() == 1)
 			return u;
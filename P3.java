@@ -9,14 +9,21 @@ public class P3 {
 	// private Builder builder;
 	private PrintWriter printer, printerA, printerT;
 
-	/** The main method, calls initialize() and run() */
+	/**
+	 * The main method, calls initialize() and run()
+	 * @param args Optional: the number of batches to compute at once, by runParallel(); one after another if not given.
+	 */
 	public static void main(String[] args) throws Exception{
 		P3 sheep = new P3();
 		sheep.initialize();
+		int concurrency = (args.length > 0) ? Integer.parseInt(args[0]) : 0;
 
 		long startTime = System.nanoTime();
 		// sheep.runAndTime();
-		sheep.runAndAnalyze();
+		if (concurrency > 0)
+			sheep.runParallel(concurrency);
+		else
+			sheep.runAndAnalyze();
 		long stopTime = System.nanoTime();
 
 		double time = (double)(stopTime - startTime) /(1000000000.);
@@ -29,10 +36,8 @@ public class P3 {
 	public void initialize() throws Exception {
 		String outFile = "mapping.txt";
 		String outFileA = "analysis.txt";
-		// String outFileT = "timing.txt";
 		printer = new PrintWriter(new FileWriter(outFile));
 		printerA = new PrintWriter(new FileWriter(outFileA));
-		// printerT = new PrintWriter(new FileWriter(outFileT));
 	}
 
 
@@ -44,6 +49,10 @@ public class P3 {
 	 */
 	public void runAndAnalyze() throws Exception {
 		Builder builder = new Builder();
+		// each edge file is imported once for its three location sets
+		builder.setSharedTopology(true);
+		// the paths are read from the PathSet, unboxed
+		builder.setFlatPaths(true);
 
 		// do for each given data file
 		for(int file = 1; file < 28; file++) {
@@ -57,6 +66,7 @@ public class P3 {
 			analyze(builder);
 			// print the paths
 			printPaths(builder);
+			printStats(builder);
 
 		}
 		// close printerA after all analysis
@@ -66,12 +76,45 @@ public class P3 {
 	}
 
 
+	/**
+	 * As runAndAnalyze(), with the batches pipelined by a BatchRunner: imported ahead and computed concurrently.
+	 * The output files are the same, written in batch order.
+	 * @param concurrency The number of batches computed at once.
+	 */
+	public void runParallel(int concurrency) throws Exception {
+		try (BatchRunner runner = new BatchRunner(concurrency, () -> {
+			Builder builder = new Builder();
+			builder.setFlatPaths(true);
+			return builder;
+		})) {
+			runner.run(1, 27, (builder, file) -> {
+				System.out.println("Batch: " + file);
+				printer.println("Batch: " + file);
+				// index data
+				printerA.print(file + " ");
+				analyze(builder);
+				// print the paths
+				printPaths(builder);
+				printStats(builder);
+			});
+		}
+		// close printers after all batches are done
+		printer.close();
+		printerA.close();
+	}
+
+
 	/**
 	 * Run and write the formatted project output to "mapping.txt"
 	 * Print runtime to "timing.txt"
 	 */
 	public void runAndTime() throws Exception {
+		printerT = new PrintWriter(new FileWriter("timing.txt"));
 		Builder builder = new Builder();
+		// each edge file is imported once for its three location sets
+		builder.setSharedTopology(true);
+		// the paths are read from the PathSet, unboxed
+		builder.setFlatPaths(true);
 
 		// do for each given data file
 		for(int file = 1; file < 28; file++) {
@@ -84,12 +127,13 @@ public class P3 {
 			// builder.build(file);
 			builder.runNN();
 			long stopTime = System.nanoTime();
-			builder.formatOutput();
+			builder.collectPaths();
 			double time = stopTime - startTime;
 			printerT.println(file + " " + time);
 
 			// print all paths for each batch
 			printPaths(builder);
+			printStats(builder);
 
 		}
 		// close printers after all batches are done
@@ -104,7 +148,7 @@ public class P3 {
 	 * Method to run analysis on each batch of data (paths):
 	 * <minSize> <maxSize> <avgSize> <minDist> <maxDist> <avgDist>
 	 * where Size is the number of stations the path crosses, and Dist is the distance of the path
-	 * @param builder Of an NNGraph.
+	 * @param builder Of an NNGraph, with its paths in a PathSet; see Builder.setFlatPaths().
 	 */
 	protected void analyze(Builder builder) {
 		// variables for calculations
@@ -114,9 +158,9 @@ public class P3 {
 		maxSize = maxDist = totSize = totDist = count = 0;
 		double avgSize = 0, avgDist = 0;
 
-		for (ArrayList<Integer> tmp : builder.reducedPaths) {
-			int size = tmp.size()-1;
-			int dist = tmp.get(size);
+		for (PathSet.Path path : builder.getPathSet()) {
+			int size = path.length();
+			int dist = path.distance();
 
 			// update min max
 			if (size < minSize)
@@ -148,15 +192,19 @@ public class P3 {
 	/**
 	 * Print the paths as formatted for project requirement:
 	 * <depot> <station> <station> ... <station> <path distance>
-	 * @param builder Of an NNGraph.
+	 * @param builder Of an NNGraph, with its paths in a PathSet; see Builder.setFlatPaths().
 	 */
 	protected void printPaths(Builder builder) {
-		for (ArrayList<Integer> tmp : builder.reducedPaths) {
-			for (int i : tmp) {
+		PathSet paths = builder.getPathSet();
+		for (int p = 0; p < paths.size(); p++) {
+			for (int j = 0; j < paths.length(p); j++) {
 				// print key of each vertex
-				System.out.print(i + " ");
-				printer.print(i + " ");
+				System.out.print(paths.vertex(p, j) + " ");
+				printer.print(paths.vertex(p, j) + " ");
 			}
+			// and the path distance
+			System.out.print(paths.distance(p) + " ");
+			printer.print(paths.distance(p) + " ");
 			System.out.print("\n");
 			printer.print("\n");
 		}
@@ -165,6 +213,16 @@ public class P3 {
 	}
 
 
+	/**
+	 * Print the phase times and search counters of a batch, if counted, i.e. run with -Dgraph.stats=true; see Stats.
+	 * @param builder Of an NNGraph, after its paths are formatted.
+	 */
+	protected void printStats(Builder builder) {
+		if (Stats.ENABLED)
+			System.out.println(builder.getStats());
+	}
+
+
 
 
 }
@@ -0,0 +1,162 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A bounded least-recently-used cache of shortest paths, by source and target id; see Graph.setPathCache().
+ * Each entry holds the distance and the path as ids, and is counted at its approximate heap size; the least recently used entries are evicted to stay within the memory bound.
+ * The cache is stamped with the graph version it was filled at, and is cleared on the first lookup after the graph changes.
+ * Not thread-safe, as Graph is not.
+ */
+public class PathCache {
+	/** Approximate heap size of an entry besides its path: map node, key, entry and array headers */
+	protected static final int ENTRY_BYTES = 96;
+	protected final long maxBytes;
+	protected long bytes;
+	/** The graph version the entries are valid for */
+	protected int version = -1;
+	protected long hits, misses, evictions, invalidations;
+	/** Entries in access order, least recently used first */
+	private final LinkedHashMap<Long, Entry> entries;
+
+	/** A cached result: the distance, and the path from source to target as ids */
+	static class Entry {
+		final int distance;
+		final int[] path;
+
+		Entry(int distance, int[] path) {
+			this.distance = distance;
+			this.path = path;
+		}
+
+		long bytes() {
+			return ENTRY_BYTES + 4L*path.length;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 * @param  maxBytes The memory bound of the entries, in bytes.
+	 */
+	PathCache(long maxBytes) {
+		if (maxBytes <= 0)
+			throw new IllegalArgumentException("Memory bound must be positive: " + maxBytes);
+		this.maxBytes = maxBytes;
+		entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+	}
+
+	private static long key(int source, int target) {
+		return ((long) source << 32) | (target & 0xffffffffL);
+	}
+
+	/**
+	 * Look up a path; counts a hit or a miss.
+	 * @param  source  Id of the source vertex.
+	 * @param  target  Id of the target vertex.
+	 * @param  version The current version of the graph; if changed since the entries were added, they are all dropped first.
+	 * @return entry The cached result; null If none.
+	 */
+	public Entry get(int source, int target, int version) {
+		if (version != this.version) {
+			if (!entries.isEmpty())
+				invalidations++;
+			clear();
+			this.version = version;
+		}
+		Entry entry = entries.get(key(source, target));
+		if (entry == null)
+			misses++;
+		else
+			hits++;
+		return entry;
+	}
+
+	/**
+	 * Add a path, evicting the least recently used entries to stay within the bound.
+	 * A path larger than the whole bound is not cached.
+	 * @param  source   Id of the source vertex.
+	 * @param  target   Id of the target vertex.
+	 * @param  version  The current version of the graph.
+	 * @param  distance Of the path; MAX_VALUE If none.
+	 * @param  path     The ids from source to target.
+	 */
+	public void put(int source, int target, int version, int distance, int[] path) {
+		if (version != this.version) {
+			clear();
+			this.version = version;
+		}
+		Entry entry = new Entry(distance, path);
+		if (entry.bytes() > maxBytes)
+			return;
+		Entry old = entries.put(key(source, target), entry);
+		if (old != null)
+			bytes -= old.bytes();
+		bytes += entry.bytes();
+		Iterator<Entry> itr = entries.values().iterator();
+		while (bytes > maxBytes) {
+			bytes -= itr.next().bytes();
+			itr.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Drop all entries; the counters are kept.
+	 */
+	public void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * @return size The number of entries.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return bytes The approximate heap size of the entries.
+	 */
+	public long memoryBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return hits The number of lookups answered from the cache.
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * @return misses The number of lookups not in the cache.
+	 */
+	public long misses() {
+		return misses;
+	}
+
+	/**
+	 * @return evictions The number of entries evicted to stay within the memory bound.
+	 */
+	public long evictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return invalidations The number of times the entries were dropped because the graph changed.
+	 */
+	public long invalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * @return summary The counters, entries and memory of the cache.
+	 */
+	@Override
+	public String toString() {
+		return String.format("PathCache: %d hits, %d misses, %d evictions, %d invalidations, %d entries, %d of %d bytes",
+			hits, misses, evictions, invalidations, size(), bytes, maxBytes);
+	}
+}
@@ -0,0 +1,216 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A compact set of paths in flat primitive arrays: the keys of all paths in one vertices array, path i at offsets[i] to offsets[i+1]-1, and its distance in distances[i].
+ * The paths are as formatted for the project output (see Builder.formatOutput()): from depot to stations, with the path distance, but without a box per key or the distance appended.
+ * Read by index, length(i), vertex(i, j) and distance(i), or through the Path views of get(i) and iterator(), none of which box.
+ */
+public class PathSet implements Iterable<PathSet.Path> {
+	/** The keys of all paths, path after path */
+	protected int[] vertices;
+	/** Path i is at vertices[offsets[i]] to vertices[offsets[i+1]-1]; offsets[size] is the number of keys, and offsets[size+1] the end of the path being added */
+	protected int[] offsets;
+	/** The distance of each path */
+	protected int[] distances;
+	/** The number of paths */
+	protected int size;
+
+
+	/**
+	 * Constructor, of an empty set.
+	 * @param  paths Capacity of paths, grown as needed.
+	 * @param  keys  Capacity of keys of all paths, grown as needed.
+	 */
+	PathSet(int paths, int keys) {
+		vertices = new int[Math.max(keys, 1)];
+		offsets = new int[paths + 2];
+		distances = new int[Math.max(paths, 1)];
+	}
+
+
+	/**
+	 * The NN-paths of a graph in a PathSet, formatted as Builder.formatOutput() does: each path reversed to start from the depot, and its distance by pathLength().
+	 * @param  graph The graph of the paths.
+	 * @param  paths The paths, from station to depot, e.g. NNGraph.reducedPaths; left as they are.
+	 * @return pathSet Of the paths, in the same order.
+	 */
+	public static PathSet of(NNGraph<Integer, ?> graph, List<? extends List<Integer>> paths) {
+		int keys = 0;
+		for (List<Integer> path : paths)
+			keys += path.size();
+		PathSet pathSet = new PathSet(paths.size(), keys);
+		for (List<Integer> path : paths) {
+			// reverse path to start from depot; the distance is the sum of the same edges
+			int distance = 0;
+			Integer prev = null;
+			for (int j = path.size()-1; j >= 0; j--) {
+				Integer key = path.get(j);
+				pathSet.addVertex(key);
+				if (prev != null)
+					distance += graph.getEdge(prev, key);
+				prev = key;
+			}
+			pathSet.endPath(distance);
+		}
+		return pathSet;
+	}
+
+
+	/**
+	 * Append a key to the path being added; see endPath().
+	 * @param key Of the next vertex of the path.
+	 */
+	public void addVertex(int key) {
+		int end = offsets[size+1];
+		if (end == vertices.length)
+			vertices = Arrays.copyOf(vertices, 2*end);
+		vertices[end] = key;
+		offsets[size+1] = end+1;
+	}
+
+
+	/**
+	 * End the path being added, i.e. the keys added since the last endPath(); the next key starts a new path.
+	 * @param distance Of the path.
+	 */
+	public void endPath(int distance) {
+		if (size == distances.length)
+			distances = Arrays.copyOf(distances, 2*size);
+		// control: room for the end of the next path
+		if (size+2 == offsets.length)
+			offsets = Arrays.copyOf(offsets, 2*(size+2));
+		distances[size] = distance;
+		size++;
+		offsets[size+1] = offsets[size];
+	}
+
+
+	/**
+	 * @return size The number of paths.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param  i Index of a path.
+	 * @return length The number of vertices of the path.
+	 */
+	public int length(int i) {
+		return offsets[i+1] - offsets[i];
+	}
+
+	/**
+	 * @param  i Index of a path.
+	 * @param  j Index of a vertex on it, from the depot.
+	 * @return key Of the vertex.
+	 */
+	public int vertex(int i, int j) {
+		return vertices[offsets[i] + j];
+	}
+
+	/**
+	 * @param  i Index of a path.
+	 * @return distance Of the path.
+	 */
+	public int distance(int i) {
+		return distances[i];
+	}
+
+	/**
+	 * @param  i Index of a path.
+	 * @return path A view of it.
+	 */
+	public Path get(int i) {
+		return new Path(i);
+	}
+
+	/**
+	 * @return iterator Over views of the paths, in order.
+	 */
+	public Iterator<Path> iterator() {
+		return new Iterator<Path>() {
+			private int i = 0;
+
+			public boolean hasNext() {
+				return i < size;
+			}
+
+			public Path next() {
+				if (i >= size)
+					throw new NoSuchElementException();
+				return new Path(i++);
+			}
+		};
+	}
+
+
+	/**
+	 * @return paths As Builder.formatOutput() gives them: a list of keys per path, from the depot, with its distance at the last entry.
+	 */
+	public ArrayList<ArrayList<Integer>> toLists() {
+		ArrayList<ArrayList<Integer>> paths = new ArrayList<ArrayList<Integer>>(size);
+		for (Path path : this) {
+			ArrayList<Integer> list = new ArrayList<Integer>(path.length() + 1);
+			for (int j = 0; j < path.length(); j++)
+				list.add(path.vertex(j));
+			list.add(path.distance());
+			paths.add(list);
+		}
+		return paths;
+	}
+
+
+	/**
+	 * @return bytes The size of the arrays, as allocated.
+	 */
+	public long memoryBytes() {
+		return 4L * (vertices.length + offsets.length + distances.length);
+	}
+
+
+	/**
+	 * The view of a path of the set, by index.
+	 */
+	public class Path {
+		private final int index;
+
+		private Path(int index) {
+			this.index = index;
+		}
+
+		/**
+		 * @return index Of the path in the set.
+		 */
+		public int index() {
+			return index;
+		}
+
+		/**
+		 * @return length The number of vertices.
+		 */
+		public int length() {
+			return PathSet.this.length(index);
+		}
+
+		/**
+		 * @param  j Index of a vertex, from the depot.
+		 * @return key Of the vertex.
+		 */
+		public int vertex(int j) {
+			return PathSet.this.vertex(index, j);
+		}
+
+		/**
+		 * @return distance Of the path.
+		 */
+		public int distance() {
+			return distances[index];
+		}
+	}
+
+
+}
@@ -0,0 +1,169 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * A thread-safe shortest-path query engine over one shared, read-only CSRGraph.
+ * All search state lives in a SearchSpace per thread, so any number of queries can run at the same time, and each reuses its thread's space without an O(V) reset.
+ * Batches of (source, target) queries are split across a fork-join pool.
+ */
+public class QueryEngine<K> implements AutoCloseable {
+	/** Queries per fork-join task below which a batch is not split further */
+	private static final int THRESHOLD = 8;
+	protected final CSRGraph<K> graph;
+	private final ForkJoinPool pool;
+	private final ThreadLocal<SearchSpace> spaces;
+
+	/**
+	 * Constructor.
+	 * @param  graph       The frozen graph to query, see Graph.freeze().
+	 * @param  queueType   VertexQueue.PRIORITY, VertexQueue.DARY or VertexQueue.BUCKET
+	 * @param  parallelism The number of worker threads for batches.
+	 */
+	QueryEngine(final CSRGraph<K> graph, final int queueType, int parallelism) {
+		this.graph = graph;
+		pool = new ForkJoinPool(parallelism);
+		spaces = ThreadLocal.withInitial(() -> graph.newSearchSpace(queueType));
+	}
+
+	/**
+	 * Constructor, with the d-ary heap and one worker per core.
+	 * @param  graph The frozen graph to query, see Graph.freeze().
+	 */
+	QueryEngine(CSRGraph<K> graph) {
+		this(graph, VertexQueue.DARY, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @return graph The frozen graph queried.
+	 */
+	public CSRGraph<K> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Shortest distance between two vertices; safe to call from any thread.
+	 * @param  source Id of the source vertex.
+	 * @param  target Id of the target vertex.
+	 * @return distance MAX_VALUE If no path.
+	 */
+	public int distanceById(int source, int target) {
+		return graph.computePaths(source, target, spaces.get());
+	}
+
+	/**
+	 * Shortest distance between two vertices by key.
+	 * @param  k1 Key of the source vertex.
+	 * @param  k2 Key of the target vertex.
+	 * @return distance MAX_VALUE If no path.
+	 */
+	public int distance(K k1, K k2) {
+		return distanceById(id(k1), id(k2));
+	}
+
+	/**
+	 * Shortest path between two vertices; safe to call from any thread.
+	 * @param  source Id of the source vertex.
+	 * @param  target Id of the target vertex.
+	 * @return path The ids from source to target; only the target if no path, as in Graph.findShortestPath().
+	 */
+	public int[] path(int source, int target) {
+		SearchSpace space = spaces.get();
+		graph.computePaths(source, target, space);
+		int[] trace = space.trace(target);
+		// reverse to start at the source
+		for (int i = 0, j = trace.length-1; i < j; i++, j--) {
+			int tmp = trace[i];
+			trace[i] = trace[j];
+			trace[j] = tmp;
+		}
+		return trace;
+	}
+
+	/**
+	 * Answer a batch of distance queries on the fork-join pool.
+	 * @param  sources Ids of the source vertices.
+	 * @param  targets Ids of the target vertices, same length.
+	 * @return distances The i-th is from sources[i] to targets[i].
+	 */
+	public int[] distances(int[] sources, int[] targets) {
+		checkBatch(sources, targets);
+		int[] result = new int[sources.length];
+		pool.invoke(new Batch(sources, targets, 0, sources.length, result, null));
+		return result;
+	}
+
+	/**
+	 * Answer a batch of path queries on the fork-join pool.
+	 * @param  sources Ids of the source vertices.
+	 * @param  targets Ids of the target vertices, same length.
+	 * @return paths The i-th is from sources[i] to targets[i], see path().
+	 */
+	public int[][] paths(int[] sources, int[] targets) {
+		checkBatch(sources, targets);
+		int[][] result = new int[sources.length][];
+		pool.invoke(new Batch(sources, targets, 0, sources.length, null, result));
+		return result;
+	}
+
+	/**
+	 * Shut down the worker threads.
+	 */
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * @return id Of the key in the graph.
+	 */
+	private int id(K k) {
+		int id = graph.idOf(k);
+		if (id == -1)
+			throw new NoSuchElementException("No vertex with key " + k);
+		return id;
+	}
+
+	private void checkBatch(int[] sources, int[] targets) {
+		if (sources.length != targets.length)
+			throw new IllegalArgumentException("sources and targets differ in length");
+	}
+
+
+	/**
+	 * A range of a batch, split in halves until small enough to answer on one thread.
+	 */
+	private class Batch extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] sources, targets;
+		private final int lo, hi;
+		private final int[] distances;
+		private final int[][] paths;
+
+		Batch(int[] sources, int[] targets, int lo, int hi, int[] distances, int[][] paths) {
+			this.sources = sources;
+			this.targets = targets;
+			this.lo = lo;
+			this.hi = hi;
+			this.distances = distances;
+			this.paths = paths;
+		}
+
+		protected void compute() {
+			if (hi - lo <= THRESHOLD) {
+				for (int i = lo; i < hi; i++) {
+					if (paths != null)
+						paths[i] = path(sources[i], targets[i]);
+					else
+						distances[i] = distanceById(sources[i], targets[i]);
+				}
+			}
+			else {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Batch(sources, targets, lo, mid, distances, paths),
+					new Batch(sources, targets, mid, hi, distances, paths));
+			}
+		}
+	}
+}
@@ -0,0 +1,147 @@
+import java.util.*;
+import java.io.*;
+import java.util.function.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * An automated scaling study, as P3Data.txt was by hand: build the NN-paths of generated graphs across sizes and depot ratios, and time each phase.
+ * The phases are those of Builder.build() with a shared topology: import the locations and edges; build the graph; run NN; format the output.
+ * Each row of the table, tab-separated as P3Data.txt: vertices, depots, total time (ns), depot ratio; then edges, and the time of each phase (ns).
+ * Each time is the least of some runs, so the first sizes are not timed cold.
+ */
+public class ScalingSweep {
+	private final GraphGenerator generator;
+	/** Directory the generated data files are written to, and kept in */
+	private final String dir;
+	/** Makes the builder of each run, with its settings */
+	private final Supplier<Builder> builders;
+	/** Runs of each graph, of which the least time of each phase is kept */
+	protected int runs = 3;
+
+
+	/**
+	 * Constructor.
+	 * @param  generator Of the graphs.
+	 * @param  dir       Directory to write the data files in.
+	 * @param  builders  Makes the builder of each run, e.g. Builder::new.
+	 */
+	ScalingSweep(GraphGenerator generator, String dir, Supplier<Builder> builders) {
+		this.generator = generator;
+		this.dir = dir;
+		this.builders = builders;
+	}
+
+
+	/**
+	 * Sweep and write the table; see the usage below. The data files are imported memory-mapped, with the same graphs as by Scanner.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: java ScalingSweep road|dense [sizes] [depot ratios] [degree] [output] [seed]");
+			System.out.println("e.g.:  java ScalingSweep dense 1000,10000,100000,1000000 0.01,0.05,0.1,0.2,0.5 10 P3Data-dense.txt 150");
+			return;
+		}
+		String kind = args[0];
+		int[] sizes = (args.length > 1) ? parseInts(args[1]) : new int[]{1000, 10000, 100000};
+		double[] ratios = (args.length > 2) ? parseDoubles(args[2]) : new double[]{0.01, 0.05, 0.1, 0.2, 0.5};
+		int degree = (args.length > 3) ? Integer.parseInt(args[3]) : 10;
+		String output = (args.length > 4) ? args[4] : "P3Data-" + kind + ".txt";
+		long seed = (args.length > 5) ? Long.parseLong(args[5]) : 150;
+
+		ScalingSweep sweep = new ScalingSweep(new GraphGenerator(seed), "sweep", () -> {
+			Builder builder = new Builder();
+			builder.setMappedImport(true);
+			return builder;
+		});
+		PrintWriter printer = new PrintWriter(new FileWriter(output));
+		sweep.run(kind, sizes, degree, ratios, 1, printer);
+		printer.close();
+	}
+
+
+	/**
+	 * Run the sweep: for each size, generate a graph; for each depot ratio, its locations; then time the build.
+	 * @param  kind     GraphGenerator.ROAD or DENSE.
+	 * @param  sizes    Numbers of vertices.
+	 * @param  degree   Average degree, of a DENSE graph.
+	 * @param  ratios   Depot fractions of the locations.
+	 * @param  coverage Fraction of the vertices that are locations.
+	 * @param  printer  Takes the table, a row per size and ratio, as each is timed.
+	 */
+	public void run(String kind, int[] sizes, int degree, double[] ratios, double coverage, PrintWriter printer) throws Exception {
+		new File(dir).mkdirs();
+		for (int size : sizes) {
+			int[] edges = generator.generate(kind, size, degree);
+			String edgeFile = generator.writeEdges(dir, size, edges);
+			int lines = edges.length/3;
+			edges = null;
+			for (double ratio : ratios) {
+				String locationFile = dir + "/" + kind + "-" + size + "-" + ratio + ".txt";
+				int depots = generator.writeLocations(locationFile, size, ratio, coverage);
+				long[] phases = time(locationFile, edgeFile);
+				long total = 0;
+				for (long phase : phases)
+					total += phase;
+				String row = size + "\t" + depots + "\t" + total + "\t" + ratio + "\t" + lines;
+				for (long phase : phases)
+					row += "\t" + phase;
+				printer.println(row);
+				printer.flush();
+				System.out.println(row);
+			}
+		}
+	}
+
+
+	/**
+	 * Time the phases of building a graph from files.
+	 * @param  locationFile Path of its locations.
+	 * @param  edgeFile     Path of its edges.
+	 * @return phases The least time in ns, over the runs, of: import, graph, NN, output.
+	 */
+	protected long[] time(String locationFile, String edgeFile) throws Exception {
+		long[] phases = new long[4];
+		Arrays.fill(phases, Long.MAX_VALUE);
+		for (int run = 0; run < runs; run++) {
+			Builder builder = builders.get();
+			long start = System.nanoTime();
+			Importer importer = builder.newImporter();
+			importer.importNodes(locationFile);
+			Topology topology = importer.importTopology(edgeFile);
+			long imported = System.nanoTime();
+			builder.buildGraph(importer, topology);
+			long built = System.nanoTime();
+			builder.runNN();
+			long found = System.nanoTime();
+			builder.formatOutput();
+			long formatted = System.nanoTime();
+			phases[0] = Math.min(phases[0], imported - start);
+			phases[1] = Math.min(phases[1], built - imported);
+			phases[2] = Math.min(phases[2], found - built);
+			phases[3] = Math.min(phases[3], formatted - found);
+		}
+		return phases;
+	}
+
+
+	private static int[] parseInts(String list) {
+		String[] items = list.split(",");
+		int[] values = new int[items.length];
+		for (int i = 0; i < items.length; i++)
+			values[i] = Integer.parseInt(items[i].trim());
+		return values;
+	}
+
+
+	private static double[] parseDoubles(String list) {
+		String[] items = list.split(",");
+		double[] values = new double[items.length];
+		for (int i = 0; i < items.length; i++)
+			values[i] = Double.parseDouble(items[i].trim());
+		return values;
+	}
+
+
+}
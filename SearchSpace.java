@@ -0,0 +1,150 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * The reusable search state of Dijkstra's algorithm on a CSRGraph: minDistance, previous and checked of every vertex, and the queue.
+ * Instead of being reset vertex by vertex, each entry is stamped with the epoch of the search that wrote it; reset() starts a new epoch, so entries of earlier searches read as unreached in O(1).
+ * A SearchSpace is not thread-safe: give each thread its own, e.g. through a ThreadLocal as in QueryEngine.
+ */
+public class SearchSpace {
+	protected final int sizeV;
+	protected final int queueType, maxWeight;
+	private final int[] dist, previous;
+	/** Epoch each vertex was last reached and checked in */
+	private final int[] reached, checked;
+	private int epoch;
+	/** The queue of the current search */
+	protected final VertexQueue vertexQ;
+	/** The number of vertices checked in the current search */
+	protected int settled;
+	/** The counters to add to, if Stats.ENABLED; that of the graph, if taken from Graph.frozenSpace() */
+	protected Stats stats = new Stats();
+
+	/**
+	 * Constructor.
+	 * @param  sizeV     The number of vertices, i.e. ids are 0 to sizeV-1.
+	 * @param  queueType VertexQueue.PRIORITY, VertexQueue.DARY or VertexQueue.BUCKET
+	 * @param  maxWeight The largest edge weight.
+	 */
+	SearchSpace(int sizeV, int queueType, int maxWeight) {
+		this.sizeV = sizeV;
+		this.queueType = queueType;
+		this.maxWeight = maxWeight;
+		dist = new int[sizeV];
+		previous = new int[sizeV];
+		reached = new int[sizeV];
+		checked = new int[sizeV];
+		vertexQ = VertexQueue.create(queueType, sizeV, maxWeight);
+		reset();
+	}
+
+	/**
+	 * Check if this space can be reused for a graph.
+	 * @param  sizeV     The number of vertices of the graph.
+	 * @param  queueType The queue type wanted.
+	 * @param  maxWeight The largest edge weight of the graph.
+	 * @return true If sizes and queue type match, and the queue covers the weights; false otherwise.
+	 */
+	public boolean fits(int sizeV, int queueType, int maxWeight) {
+		return this.sizeV == sizeV && this.queueType == queueType && this.maxWeight >= maxWeight;
+	}
+
+	/**
+	 * Start a new search: all vertices become unreached and unchecked, and the queue empty.
+	 */
+	public void reset() {
+		epoch++;
+		// on overflow, wipe the stamps once
+		if (epoch == Integer.MAX_VALUE) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(checked, 0);
+			epoch = 1;
+			if (Stats.ENABLED)
+				stats.resets += sizeV;
+		}
+		vertexQ.clear();
+		settled = 0;
+		if (Stats.ENABLED)
+			stats.searches++;
+	}
+
+	/**
+	 * @param  v Id of vertex
+	 * @return minDistance Of v in this search; MAX_VALUE if not reached.
+	 */
+	public int dist(int v) {
+		return reached[v] == epoch ? dist[v] : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @param  v Id of vertex
+	 * @return previous Id of the vertex before v on its shortest path; -1 if none.
+	 */
+	public int previous(int v) {
+		return reached[v] == epoch ? previous[v] : -1;
+	}
+
+	/**
+	 * Record a shorter distance to v; the caller offers v to the queue.
+	 * @param v        Id of vertex
+	 * @param distance The new minDistance.
+	 * @param prev     Id of the vertex before v; -1 for a source.
+	 */
+	public void reach(int v, int distance, int prev) {
+		if (Stats.ENABLED) {
+			if (reached[v] == epoch)
+				stats.decreaseKeys++;
+			else
+				stats.inserts++;
+		}
+		reached[v] = epoch;
+		dist[v] = distance;
+		previous[v] = prev;
+	}
+
+	/**
+	 * @param  v Id of vertex
+	 * @return true If v is checked, i.e. its minDistance is final; false otherwise.
+	 */
+	public boolean isChecked(int v) {
+		return checked[v] == epoch;
+	}
+
+	/**
+	 * Mark a vertex as checked when polled from the queue.
+	 * @param v Id of vertex
+	 */
+	public void check(int v) {
+		checked[v] = epoch;
+		settled++;
+		if (Stats.ENABLED) {
+			stats.settled++;
+			stats.polls++;
+		}
+	}
+
+	/**
+	 * @return settled The number of vertices checked in the current search.
+	 */
+	public int settled() {
+		return settled;
+	}
+
+	/**
+	 * Follow previous from a vertex back to the root of the search.
+	 * @param  v Id of the vertex to start at.
+	 * @return path The ids from v to the root, in that order.
+	 */
+	public int[] trace(int v) {
+		int length = 0;
+		for (int tmp = v; tmp != -1; tmp = previous(tmp))
+			length++;
+		int[] path = new int[length];
+		int i = 0;
+		for (int tmp = v; tmp != -1; tmp = previous(tmp))
+			path[i++] = tmp;
+		return path;
+	}
+}
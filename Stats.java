@@ -0,0 +1,157 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * Counters of the hot paths, and the wall time of each phase of a build, for finding why a batch is slow.
+ * Counting is on only if the JVM is started with -Dgraph.stats=true: ENABLED is a constant, so when off, every "if (Stats.ENABLED)" is folded away by the JIT and costs nothing.
+ * Hence "make test-stats", which runs the tests with counting on; "make test" checks that nothing is counted.
+ * A Builder keeps one per build and passes it on to its graph; a SearchSpace counts into the Stats of the graph it is taken from.
+ * Not thread-safe, except countSublists(); give each thread its own, as BatchRunner does with a builder per batch.
+ */
+public class Stats {
+	/** Read once, at class load */
+	public static final boolean ENABLED = Boolean.getBoolean("graph.stats");
+	/**
+	 * The phases timed. IMPORT is reading the data files, all edge parsing included: into a Topology, or streamed into the graph as parsed, which then adds them too;
+	 * BUILD is the rest of building the graph, i.e. overlaying the topology, or adding the nodes. So the phases split alike with or without Builder.setSharedTopology().
+	 */
+	public static final int IMPORT = 0, BUILD = 1, COMPUTE = 2, REDUCE = 3, FORMAT = 4;
+	/** Names of the phases, by index */
+	public static final String[] PHASES = {"import", "build", "computeAllStations", "pathReduce", "formatOutput"};
+	/** Wall time of each phase, in ns */
+	protected final long[] phaseNanos = new long[PHASES.length];
+	/** Searches run; vertices checked, i.e. polled from the queue; edges relaxed to unchecked vertices */
+	protected long searches, settled, relaxations;
+	/** Queue operations: vertices first offered, offered again with a smaller key, and polled */
+	protected long inserts, decreaseKeys, polls;
+	/** Search state reset: entries of vertices cleared before a search */
+	protected long resets;
+	/** isSublist() calls of pathReduce() */
+	protected long sublistChecks;
+
+
+	/**
+	 * @return start The time to pass to stop(); 0 if disabled.
+	 */
+	public static long start() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+
+	/**
+	 * Add the time since start to a phase.
+	 * @param phase IMPORT, BUILD, COMPUTE, REDUCE or FORMAT.
+	 * @param start From start().
+	 */
+	public void stop(int phase, long start) {
+		if (ENABLED)
+			phaseNanos[phase] += System.nanoTime() - start;
+	}
+
+
+	/**
+	 * Add to sublistChecks; may be called from the threads of a parallel pathReduce().
+	 * @param checks The isSublist() calls of one dumpSublist().
+	 */
+	public synchronized void countSublists(long checks) {
+		sublistChecks += checks;
+	}
+
+
+	/**
+	 * Set all counters and times to 0.
+	 */
+	public void reset() {
+		Arrays.fill(phaseNanos, 0);
+		searches = settled = relaxations = 0;
+		inserts = decreaseKeys = polls = 0;
+		resets = sublistChecks = 0;
+	}
+
+
+	/**
+	 * @param  phase IMPORT, BUILD, COMPUTE, REDUCE or FORMAT.
+	 * @return nanos The wall time of the phase.
+	 */
+	public long phaseNanos(int phase) {
+		return phaseNanos[phase];
+	}
+
+	/**
+	 * @return searches The number of Dijkstra's searches run.
+	 */
+	public long searches() {
+		return searches;
+	}
+
+	/**
+	 * @return settled The number of vertices checked.
+	 */
+	public long settled() {
+		return settled;
+	}
+
+	/**
+	 * @return relaxations The number of edges relaxed, i.e. looked at from a checked vertex to an unchecked one.
+	 */
+	public long relaxations() {
+		return relaxations;
+	}
+
+	/**
+	 * @return inserts The number of vertices offered to a queue for the first time in a search.
+	 */
+	public long inserts() {
+		return inserts;
+	}
+
+	/**
+	 * @return decreaseKeys The number of vertices offered again with a smaller key.
+	 */
+	public long decreaseKeys() {
+		return decreaseKeys;
+	}
+
+	/**
+	 * @return polls The number of vertices polled from a queue.
+	 */
+	public long polls() {
+		return polls;
+	}
+
+	/**
+	 * @return heapOperations Inserts, decrease-keys and polls.
+	 */
+	public long heapOperations() {
+		return inserts + decreaseKeys + polls;
+	}
+
+	/**
+	 * @return resets The number of vertex entries cleared to start searches; 0 for a SearchSpace, except when its epoch wraps.
+	 */
+	public long resets() {
+		return resets;
+	}
+
+	/**
+	 * @return sublistChecks The number of isSublist() calls.
+	 */
+	public long sublistChecks() {
+		return sublistChecks;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder("Stats:");
+		for (int phase = 0; phase < PHASES.length; phase++)
+			str.append(String.format(" %s %.3f ms,", PHASES[phase], phaseNanos[phase]/1e6));
+		str.append(String.format(" %d searches, %d settled, %d relaxations, %d inserts, %d decrease-keys, %d polls, %d resets, %d sublist checks",
+			searches, settled, relaxations, inserts, decreaseKeys, polls, resets, sublistChecks));
+		return str.toString();
+	}
+
+
+}
@@ -0,0 +1,43 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestBatchRunner extends TestCase {
+
+
+
+//  the NN-paths of each batch, in batch order, as built one after another
+  public void testRun() throws Exception {
+    final ArrayList<Integer> order = new ArrayList<Integer>();
+    final ArrayList<ArrayList<ArrayList<Integer>>> paths = new ArrayList<ArrayList<ArrayList<Integer>>>();
+    try (BatchRunner runner = new BatchRunner(3, Builder::new)) {
+      runner.run(1, 9, (builder, file) -> {
+        order.add(file);
+        paths.add(builder.reducedPaths);
+      });
+    }
+    for (int i = 1; i <= 9; i++) {
+      Assert.assertTrue(order.get(i-1) == i);
+      Assert.assertTrue(paths.get(i-1).equals(new Builder().build(i)));
+    }
+  }
+
+
+
+//  an error of a batch is thrown after the batches before it are output
+  public void testError() throws Exception {
+    final ArrayList<Integer> order = new ArrayList<Integer>();
+    try (BatchRunner runner = new BatchRunner(2, Builder::new)) {
+      runner.run(26, 29, (builder, file) -> order.add(file));
+      Assert.fail();
+    } catch (IndexOutOfBoundsException e) {
+//      no data for batch 28
+      Assert.assertTrue(order.equals(Arrays.asList(26, 27)));
+    }
+  }
+
+
+
+}
@@ -0,0 +1,100 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestCSRGraph extends TestCase {
+  private NNGraph<Integer, Integer> graph;
+  private CSRGraph<Integer> csr;
+  private SearchSpace space;
+
+  public void setUp() {
+//    same sample graph as TestNNGraph: node 1-2-4-3-5, stations 1,2,3; depots 4,5
+    graph = new NNGraph<Integer, Integer>();
+    graph.addNode(1, 1, -1);
+    graph.addNode(2, 2, -1);
+    graph.addNode(3, 3, -1);
+    graph.addNode(4, 4, 1);
+    graph.addNode(5, 5, 1);
+    graph.addEdge(1, 2, 10);
+    graph.addEdge(2, 4, 20);
+    graph.addEdge(4, 3, 50);
+    graph.addEdge(3, 5, 5);
+
+    csr = graph.freeze();
+    space = csr.newSearchSpace(VertexQueue.PRIORITY);
+  }
+
+
+
+  public void testFreeze() {
+//    sizes and degrees agree with the graph
+    Assert.assertTrue(csr.getSizeV() == 5);
+    Assert.assertTrue(csr.getSizeE() == 4);
+    for (int v = 0; v < csr.getSizeV(); v++) {
+      Assert.assertTrue(csr.getDegree(v) == graph.nodeAt(v).getDegree());
+      Assert.assertTrue(csr.keyOf(v) == graph.nodeAt(v).getKey());
+      Assert.assertTrue(csr.type(v) == graph.nodeAt(v).type());
+      Assert.assertTrue(csr.idOf(graph.nodeAt(v).getKey()) == v);
+    }
+
+//    same view until the graph is modified
+    Assert.assertTrue(graph.freeze() == csr);
+    graph.addEdge(1, 5, 1);
+    Assert.assertFalse(graph.freeze() == csr);
+    Assert.assertTrue(graph.freeze().getSizeE() == 5);
+  }
+
+
+
+  public void testComputePaths() {
+//    from station1 (id 0) to station3 (id 2): 1-2-4-3, distance 80
+    Assert.assertTrue(csr.computePaths(0, 2, space) == 80);
+    int[] trace = space.trace(2);
+    Assert.assertTrue(Arrays.equals(trace, new int[] {2, 3, 1, 0}));
+
+//    no path to a new isolated node
+    graph.addNode(6, 6);
+    csr = graph.freeze();
+    space = csr.newSearchSpace(VertexQueue.PRIORITY);
+    Assert.assertTrue(csr.computePaths(0, 5, space) == Integer.MAX_VALUE);
+    Assert.assertTrue(space.trace(5).length == 1);
+  }
+
+
+
+  public void testClosestDepot() {
+//    depot4 (id 3) is closest to station1 and station2, depot5 (id 4) to station3
+    Assert.assertTrue(csr.closestDepot(0, space) == 3);
+    Assert.assertTrue(csr.closestDepot(1, space) == 3);
+    Assert.assertTrue(csr.closestDepot(2, space) == 4);
+//    the path traced back goes 4-3
+    Assert.assertTrue(csr.traceKeys(4, space).equals(Arrays.asList(5, 3)));
+  }
+
+
+
+  public void testGrowDepotForest() {
+    csr.growDepotForest(space);
+//    distance to closest depot of each station
+    Assert.assertTrue(space.dist(0) == 30);
+    Assert.assertTrue(space.dist(1) == 20);
+    Assert.assertTrue(space.dist(2) == 5);
+//    path from station1 up the forest
+    Assert.assertTrue(csr.traceKeys(0, space).equals(Arrays.asList(1, 2, 4)));
+  }
+
+
+
+  public void testFrozenSearch() {
+//    same path and length as searching the nodes
+    ArrayList<Node<Integer, Integer>> path = graph.findShortestPath(1, 3);
+    int length = graph.pathLength();
+    graph.setFrozenSearch(true);
+    Assert.assertTrue(graph.findShortestPath(1, 3).equals(path));
+    Assert.assertTrue(graph.pathLength() == length);
+  }
+
+
+}
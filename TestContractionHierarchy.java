@@ -0,0 +1,134 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+import java.io.*;
+
+
+public class TestContractionHierarchy extends TestCase {
+  private Graph<Integer, Integer> graph;
+  private CSRGraph<Integer> csr;
+  private ContractionHierarchy<Integer> hierarchy;
+  private int size = 60;
+
+  public void setUp() {
+//    a random connected graph: a line 0-1-...-59, plus random chords
+    graph = GraphFixture.randomGraph(size, 2*size, 30);
+    csr = graph.freeze();
+    hierarchy = new ContractionHierarchy<Integer>(csr);
+  }
+
+
+
+  public void testDistance() {
+//    same distance as Dijkstra's to every vertex
+    SearchSpace forward = hierarchy.newSearchSpace(), backward = hierarchy.newSearchSpace();
+    GraphFixture.assertExact(csr, 3, (s, t) -> hierarchy.distance(s, t, forward, backward));
+  }
+
+
+
+  public void testWitnessLimit() {
+//    a witness search of the clique of 70 gives up before reaching w, so contracting v adds shortcut 0-w of 20; a clique of 20 has room to find the witness
+    for (int clique : new int[]{20, 70}) {
+      CSRGraph<Integer> detour = GraphFixture.cliqueWithDetour(clique, 10).freeze();
+      ContractionHierarchy<Integer> limited = new ContractionHierarchy<Integer>(detour);
+      int v = clique, w = clique+1;
+      int low = (limited.rank(0) < limited.rank(w)) ? 0 : w, high = (low == 0) ? w : 0;
+      boolean shortcut = false;
+      for (int arc = limited.upOffsets[low]; arc < limited.upOffsets[low+1]; arc++)
+        if (limited.upTargets[arc] == high && limited.upMiddle[arc] == v && limited.upWeights[arc] == 20)
+          shortcut = true;
+      Assert.assertTrue(shortcut == (clique == 70));
+//      the needless shortcut never wins: still exact, and unpacked to the path through the clique
+      SearchSpace forward = limited.newSearchSpace(), backward = limited.newSearchSpace();
+      GraphFixture.assertExact(detour, 7, (s, t) -> limited.distance(s, t, forward, backward));
+      int[] path = limited.unpack(limited.meet(0, w, forward, backward), forward, backward);
+      Assert.assertTrue(Arrays.equals(path, new int[]{0, 1, clique+2, w}));
+    }
+  }
+
+
+
+  public void testUnreachable() {
+//    no path across the components: MAX_VALUE, as Dijkstra's
+    CSRGraph<Integer> apart = GraphFixture.twoComponents(size/2).freeze();
+    ContractionHierarchy<Integer> split = new ContractionHierarchy<Integer>(apart);
+    SearchSpace forward = split.newSearchSpace(), backward = split.newSearchSpace();
+    GraphFixture.assertExact(apart, 3, (s, t) -> split.distance(s, t, forward, backward));
+    Assert.assertTrue(split.distance(0, size-1, forward, backward) == Integer.MAX_VALUE);
+  }
+
+
+
+  public void testZeroWeights() {
+//    ties between witness and shortcut: either is kept, the distances stay exact
+    CSRGraph<Integer> zero = GraphFixture.zeroWeights(size).freeze();
+    ContractionHierarchy<Integer> ties = new ContractionHierarchy<Integer>(zero);
+    SearchSpace forward = ties.newSearchSpace(), backward = ties.newSearchSpace();
+    GraphFixture.assertExact(zero, 1, (s, t) -> ties.distance(s, t, forward, backward));
+  }
+
+
+
+  public void testUnpack() {
+    SearchSpace forward = hierarchy.newSearchSpace(), backward = hierarchy.newSearchSpace();
+    for (int s = 0; s < size; s += 7) {
+      for (int t = 0; t < size; t += 5) {
+        int meet = hierarchy.meet(s, t, forward, backward);
+        int[] path = hierarchy.unpack(meet, forward, backward);
+//        original edges only, from s to t, summing to the distance
+        Assert.assertTrue(path[0] == s && path[path.length-1] == t);
+        int distance = 0;
+        for (int i = 0; i < path.length-1; i++) {
+          Assert.assertTrue(graph.getEdge(path[i], path[i+1]) >= 0);
+          distance += graph.getEdge(path[i], path[i+1]);
+        }
+        Assert.assertTrue(distance == forward.dist(meet) + backward.dist(meet));
+      }
+    }
+  }
+
+
+
+  public void testSaveLoad() throws IOException {
+    File file = File.createTempFile("hierarchy", ".ch");
+    file.deleteOnExit();
+    hierarchy.save(file.getPath());
+    ContractionHierarchy<Integer> loaded = ContractionHierarchy.load(file.getPath(), csr);
+    Assert.assertTrue(loaded.getShortcuts() == hierarchy.getShortcuts());
+    Assert.assertTrue(loaded.memoryBytes() == hierarchy.memoryBytes());
+    for (int v = 0; v < size; v++)
+      Assert.assertTrue(loaded.rank(v) == hierarchy.rank(v));
+
+//    a changed graph rejects the file
+    graph.addEdge(0, size-1, 1);
+    try {
+      ContractionHierarchy.load(file.getPath(), graph.freeze());
+      Assert.fail();
+    }
+    catch (IOException e) {
+    }
+  }
+
+
+
+  public void testChMode() {
+    graph.addNode(-1, -1);
+    for (int t = 0; t < size; t += 4) {
+      graph.setSearchMode(Graph.DIJKSTRA);
+      graph.findShortestPath(0, t);
+      int expDist = graph.pathLength();
+      graph.setSearchMode(Graph.CH);
+      ArrayList<Node<Integer, Integer>> path = graph.findShortestPath(0, t);
+      Assert.assertTrue(graph.pathLength() == expDist);
+      Assert.assertTrue(path.get(0).getKey() == 0);
+      Assert.assertTrue(path.get(path.size()-1).getKey() == t);
+    }
+//    isolated target: only the target in path
+    Assert.assertTrue(graph.findShortestPath(0, -1).size() == 1);
+    Assert.assertTrue(graph.pathLength() == Integer.MAX_VALUE);
+  }
+
+
+}
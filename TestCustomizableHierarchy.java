@@ -0,0 +1,112 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestCustomizableHierarchy extends TestCase {
+  private Graph<Integer, Integer> graph;
+  private CustomizableHierarchy<Integer> hierarchy;
+  private int size = 60;
+  private Random random;
+
+  public void setUp() {
+//    a random connected graph: a line 0-1-...-59, plus random chords
+    graph = GraphFixture.randomGraph(size, 2*size, 30);
+    random = new Random(GraphFixture.SEED);
+    hierarchy = new CustomizableHierarchy<Integer>(graph.freeze());
+  }
+
+  private void assertExact(CSRGraph<Integer> csr) {
+    SearchSpace forward = hierarchy.newSearchSpace(), backward = hierarchy.newSearchSpace();
+    GraphFixture.assertExact(csr, 3, (s, t) -> hierarchy.distance(s, t, forward, backward));
+  }
+
+
+
+  public void testDistance() {
+    assertExact(graph.freeze());
+    Assert.assertTrue(hierarchy.levels() > 0);
+  }
+
+
+
+  public void testCustomize() {
+    CSRGraph<Integer> before = graph.freeze();
+    for (int round = 0; round < 3; round++) {
+//      longer and shorter weights for a third of the line
+      for (int i = 0; i < size-1; i += 3)
+        Assert.assertTrue(graph.setWeight(i, i+1, random.nextInt(40)));
+      CSRGraph<Integer> after = graph.freeze();
+//      only weights copied, vertices and edges shared
+      Assert.assertTrue(after != before && after.offsets == before.offsets);
+      hierarchy.customize(after);
+      assertExact(after);
+    }
+//    no such edge
+    Assert.assertFalse(graph.setWeight(0, size+1, 1));
+  }
+
+
+
+  public void testUnreachable() {
+//    no elimination joins the components: MAX_VALUE across, as Dijkstra's
+    CSRGraph<Integer> apart = GraphFixture.twoComponents(size/2).freeze();
+    hierarchy = new CustomizableHierarchy<Integer>(apart);
+    assertExact(apart);
+    SearchSpace forward = hierarchy.newSearchSpace(), backward = hierarchy.newSearchSpace();
+    Assert.assertTrue(hierarchy.distance(0, size-1, forward, backward) == Integer.MAX_VALUE);
+  }
+
+
+
+  public void testZeroWeights() {
+//    customized down to weight 0 along the whole line, then back up
+    for (int i = 0; i < size-1; i++)
+      Assert.assertTrue(graph.setWeight(i, i+1, 0));
+    hierarchy.customize(graph.freeze());
+    assertExact(graph.freeze());
+    SearchSpace forward = hierarchy.newSearchSpace(), backward = hierarchy.newSearchSpace();
+    Assert.assertTrue(hierarchy.distance(0, size-1, forward, backward) == 0);
+    for (int i = 0; i < size-1; i++)
+      graph.setWeight(i, i+1, 1 + random.nextInt(20));
+    hierarchy.customize(graph.freeze());
+    assertExact(graph.freeze());
+  }
+
+
+
+  public void testOtherTopology() {
+    graph.addNode(-1, -1);
+    try {
+      hierarchy.customize(graph.freeze());
+      Assert.fail();
+    }
+    catch (IllegalArgumentException e) {
+    }
+  }
+
+
+
+  public void testChMode() {
+    graph.setSearchMode(Graph.CH);
+    Assert.assertTrue(graph.prepareCustomizableHierarchy() != null);
+    ContractionHierarchy<Integer> prepared = graph.currentHierarchy();
+    for (int i = 0; i < size-1; i += 2) {
+      graph.setWeight(i, i+1, 1 + random.nextInt(40));
+      graph.setSearchMode(Graph.DIJKSTRA);
+      graph.findShortestPath(0, size-1);
+      int expDist = graph.pathLength();
+      graph.setSearchMode(Graph.CH);
+      graph.findShortestPath(0, size-1);
+      Assert.assertTrue(graph.pathLength() == expDist);
+    }
+//    customized in place, not built again
+    Assert.assertTrue(graph.currentHierarchy() == prepared);
+//    a new vertex: built again
+    graph.addNode(-1, -1);
+    Assert.assertTrue(graph.currentHierarchy() != prepared);
+  }
+
+
+}
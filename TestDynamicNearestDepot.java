@@ -0,0 +1,117 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestDynamicNearestDepot extends TestCase {
+  private NNGraph<Integer, Integer> graph;
+  private DynamicNearestDepot<Integer, Integer> forest;
+
+  public void setUp() {
+//    same sample graph as TestNNGraph: stations 1, 2, 3; depots 4, 5; edges 1-2-4-3-5
+    graph = new NNGraph<Integer, Integer>();
+    graph.addNode(1, 1, -1);
+    graph.addNode(2, 2, -1);
+    graph.addNode(3, 3, -1);
+    graph.addNode(4, 4, 1);
+    graph.addNode(5, 5, 1);
+    graph.addEdge(1, 2, 10);
+    graph.addEdge(2, 4, 20);
+    graph.addEdge(4, 3, 50);
+    graph.addEdge(3, 5, 5);
+    forest = new DynamicNearestDepot<Integer, Integer>(graph);
+  }
+
+  private void assertStation(int station, int depot, int distance) {
+    Assert.assertTrue(forest.depotOf(station) == depot);
+    Assert.assertTrue(forest.distance(station) == distance);
+  }
+
+
+
+  public void testForest() {
+    assertStation(1, 4, 30);
+    assertStation(2, 4, 20);
+    assertStation(3, 5, 5);
+//    depots are their own
+    assertStation(4, 4, 0);
+    Assert.assertTrue(forest.previous(4) == null);
+    Assert.assertTrue(forest.previous(1) == 2);
+    Assert.assertTrue(forest.pathToDepot(1).equals(Arrays.asList(1, 2, 4)));
+  }
+
+
+
+  public void testDecrease() {
+//    a new edge 1-5: station 1, then 2, go to depot 5
+    Assert.assertTrue(forest.addEdge(1, 5, 1));
+    assertStation(1, 5, 1);
+    assertStation(2, 5, 11);
+    Assert.assertTrue(forest.lastUpdated() == 2);
+//    a shorter weight, only station 3 relabeled
+    Assert.assertTrue(forest.setWeight(3, 5, 2));
+    assertStation(3, 5, 2);
+    Assert.assertTrue(forest.lastUpdated() == 1);
+//    a longer edge is ignored by addEdge
+    Assert.assertFalse(forest.addEdge(3, 5, 9));
+    Assert.assertTrue(forest.lastUpdated() == 0);
+  }
+
+
+
+  public void testIncrease() {
+//    edge 2-4 longer: stations 1, 2 detached, and back to depot 4 at the new length
+    Assert.assertTrue(forest.setWeight(2, 4, 60));
+    assertStation(2, 4, 60);
+    assertStation(1, 4, 70);
+    Assert.assertTrue(forest.lastUpdated() == 2);
+//    not an edge of the forest: nothing relabeled
+    Assert.assertTrue(forest.setWeight(4, 3, 80));
+    Assert.assertTrue(forest.lastUpdated() == 0);
+//    removed: stations 1, 2 unreachable
+    Assert.assertTrue(forest.removeEdge(2, 4));
+    Assert.assertTrue(forest.depotOf(1) == null && forest.distance(2) == Integer.MAX_VALUE);
+    Assert.assertTrue(forest.pathToDepot(1).size() == 0);
+    Assert.assertFalse(forest.removeEdge(2, 4));
+  }
+
+
+
+  public void testMatchesRecompute() {
+    Random random = new Random(150);
+    for (int i = 6; i < 40; i++)
+      forest.addNode(i, i, (i % 7 == 0) ? 1 : -1);
+    for (int op = 0; op < 300; op++) {
+      int u = 1 + random.nextInt(39), v = 1 + random.nextInt(39);
+      switch (random.nextInt(3)) {
+        case 0: forest.addEdge(u, v, random.nextInt(30)); break;
+        case 1: forest.setWeight(u, v, random.nextInt(30)); break;
+        default: forest.removeEdge(u, v);
+      }
+//      same labels as a forest grown from scratch
+      DynamicNearestDepot<Integer, Integer> full = new DynamicNearestDepot<Integer, Integer>(graph);
+      for (int k = 1; k < 40; k++) {
+        Assert.assertTrue(forest.distance(k) == full.distance(k));
+        Assert.assertTrue(Objects.equals(forest.depotOf(k), full.depotOf(k)));
+      }
+    }
+  }
+
+
+
+  public void testDynamicMode() {
+    forest = graph.setDynamic();
+    forest.addEdge(1, 5, 1);
+//    stations 1, 2 now on one path to depot 5, station 3 on its own
+    ArrayList<ArrayList<Integer>> paths = graph.rerunNN();
+    Assert.assertTrue(paths.size() == 2);
+    Assert.assertTrue(paths.contains(Arrays.asList(2, 1, 5)));
+    Assert.assertTrue(paths.contains(Arrays.asList(3, 5)));
+//    a change made to the graph directly is caught
+    graph.addEdge(2, 5, 1);
+    assertStation(2, 5, 1);
+  }
+
+
+}
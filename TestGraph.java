@@ -65,6 +65,29 @@ public class TestGraph extends TestCase {
   
   
   
+  public void testGetNodeLargeKey() {
+//    boxed keys beyond the Integer cache, a new Integer at each autobox, shall still be found by value
+    Assert.assertTrue(graphAnew.addNode(1000, 1));
+    Assert.assertTrue(graphAnew.addNode(2000, 2));
+    Assert.assertTrue(graphAnew.getNode(1000).getEle() == 1);
+//    allows no duplicates by value either
+    Assert.assertFalse(graphAnew.addNode(2000, 2));
+    Assert.assertTrue(graphAnew.addEdge(1000, 2000, 5));
+    Assert.assertTrue(graphAnew.getEdge(1000, 2000) == 5);
+  }
+  
+  
+  
+  public void testNodeId() {
+    for (int i = start; i < end; i++) {
+//      ids are dense, in order of adding
+      Assert.assertTrue(graph.getNode(i).getId() == i-start);
+      Assert.assertTrue(graph.nodeAt(i-start).getKey() == i);
+    }
+  }
+  
+  
+  
   public void testaddEdge() {
 //    System.out.println(graph.getSizeV());
     for (int i = start; i < end-1; i++) {
@@ -112,6 +135,26 @@ public class TestGraph extends TestCase {
   
   
   
+  public void testRemoveEdge() {
+    for (int i = start; i < end-1; i++)
+      graph.addEdge(i, i+1, 2*i);
+//    removed both ways, and the size updated
+    Assert.assertTrue(graph.removeEdge(2, 3));
+    Assert.assertTrue(graph.getEdge(2, 3) == -1 && graph.getEdge(3, 2) == -1);
+    Assert.assertTrue(graph.getSizeE() == size-2);
+//    no such edge, or inexistent vertices
+    Assert.assertFalse(graph.removeEdge(2, 3));
+    Assert.assertFalse(graph.removeEdge(1, 3));
+    Assert.assertFalse(graph.removeEdge(null, 3));
+//    no path across anymore
+    graph.findShortestPath(1, 5);
+    Assert.assertTrue(graph.pathLength() == Integer.MAX_VALUE);
+  }
+  
+  
+  
+  
+  
 //  3 cases tested: path exist, path doesnt exist, shortest path exist out of many paths
   public void testFindShortestPath() {
 //    two cases tested below: path exist, path doesnt exist. Now test the correct return values
@@ -150,6 +193,37 @@ public class TestGraph extends TestCase {
   
   
   
+  public void testBidirectional() {
+//    a line with shortcuts of varied length
+    for (int i = start; i < end-1; i++)
+      Assert.assertTrue(graph.addEdge(i, i+1, 3));
+    graph.addEdge(1, 5, 7);
+    graph.addEdge(4, 9, 5);
+    graph.addEdge(2, 8, 20);
+    graph.addNode(-1, 1);
+    
+    for (int i = start; i < end; i++) {
+      for (int j = start; j < end; j++) {
+//        same path length as Dijkstra's from the source
+        graph.setSearchMode(Graph.DIJKSTRA);
+        int size = graph.findShortestPath(i, j).size();
+        int expDist = graph.pathLength();
+        graph.setSearchMode(Graph.BIDIRECTIONAL);
+        ArrayList<Node<Integer, Integer>> path = graph.findShortestPath(i, j);
+        Assert.assertTrue(graph.pathLength() == expDist);
+        Assert.assertTrue(path.size() == size);
+//        path runs from source to target
+        Assert.assertTrue(path.get(0).getKey() == i);
+        Assert.assertTrue(path.get(path.size()-1).getKey() == j);
+      }
+//      no path: only the target, max value distance
+      Assert.assertTrue(graph.findShortestPath(i, -1).size() == 1);
+      Assert.assertTrue(graph.pathLength() == Integer.MAX_VALUE);
+    }
+  }
+  
+  
+  
   public void testComputePaths() {
 //    path exists: add edges first
     testaddEdge();
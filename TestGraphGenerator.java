@@ -0,0 +1,110 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+import java.io.*;
+
+
+public class TestGraphGenerator extends TestCase {
+  private File dir;
+
+  public void setUp() {
+    dir = new File(System.getProperty("java.io.tmpdir"), "generator-test");
+    dir.mkdirs();
+  }
+
+  public void tearDown() {
+    for (File file : dir.listFiles())
+      file.delete();
+    dir.delete();
+  }
+
+
+
+//  the same seed gives the same graph
+  public void testSeeded() {
+    Assert.assertTrue(Arrays.equals(new GraphGenerator(7).road(500), new GraphGenerator(7).road(500)));
+    Assert.assertTrue(Arrays.equals(new GraphGenerator(7).dense(500, 20), new GraphGenerator(7).dense(500, 20)));
+    Assert.assertFalse(Arrays.equals(new GraphGenerator(7).dense(500, 20), new GraphGenerator(8).dense(500, 20)));
+  }
+
+
+
+  public void testRoad() {
+    int[] edges = new GraphGenerator(7).road(10000);
+//    about 2 edges per vertex, of keys 1-10000
+    Assert.assertTrue(edges.length/3 > 17000 && edges.length/3 < 20000);
+    for (int i = 0; i < edges.length; i += 3) {
+      Assert.assertTrue(edges[i] >= 1 && edges[i] <= 10000 && edges[i+1] >= 1 && edges[i+1] <= 10000);
+      Assert.assertTrue(edges[i+2] >= 0 && edges[i+2] <= GraphGenerator.MAX_WEIGHT);
+//      only to a neighbor on the grid of width 100
+      int gap = Math.abs(edges[i] - edges[i+1]);
+      Assert.assertTrue(gap == 1 || gap == 100 || gap == 101);
+    }
+  }
+
+
+
+  public void testRoadNotSquare() {
+//    a last row cut short: no diagonal past the last vertex, for any seed
+    for (int vertices : new int[]{10, 1000, 9999}) {
+      for (long seed = 0; seed < 50; seed++) {
+        int[] edges = new GraphGenerator(seed).road(vertices);
+        for (int i = 0; i < edges.length; i += 3)
+          Assert.assertTrue(edges[i] >= 1 && edges[i] <= vertices && edges[i+1] >= 1 && edges[i+1] <= vertices);
+      }
+    }
+  }
+
+
+
+  public void testDense() {
+    int[] edges = new GraphGenerator(7).dense(1000, 50);
+    Assert.assertTrue(edges.length/3 == 25000);
+    for (int i = 0; i < edges.length; i += 3)
+      Assert.assertTrue(edges[i] != edges[i+1]);
+  }
+
+
+
+//  the files are read by Importer, by Scanner and mapped alike, and built
+  public void testFiles() throws Exception {
+    GraphGenerator generator = new GraphGenerator(7);
+    int[] edges = generator.dense(300, 10);
+    String edgeFile = generator.writeEdges(dir.getPath(), 300, edges);
+    Assert.assertTrue(edgeFile.endsWith("300-1500.pyg"));
+    String locationFile = dir.getPath() + "/locations.txt";
+    int depots = generator.writeLocations(locationFile, 300, 0.2, 0.5);
+    Assert.assertTrue(depots == 30);
+
+    Importer importer = new Importer();
+    importer.importGraph(locationFile, edgeFile);
+    Assert.assertTrue(importer.depotList.size() == 30);
+    Assert.assertTrue(importer.stationList.size() == 120);
+    Importer mapped = new Importer();
+    mapped.setMapped(true);
+    mapped.importGraph(locationFile, edgeFile);
+    Assert.assertTrue(mapped.edgeList.equals(importer.edgeList));
+    Assert.assertTrue(mapped.importTopology(edgeFile).targets.length > 0);
+  }
+
+
+
+  public void testSweep() throws Exception {
+    ScalingSweep sweep = new ScalingSweep(new GraphGenerator(7), dir.getPath(), Builder::new);
+    sweep.runs = 1;
+    StringWriter table = new StringWriter();
+    PrintWriter printer = new PrintWriter(table);
+    sweep.run(GraphGenerator.ROAD, new int[]{100, 400}, 0, new double[]{0.1, 0.5}, 1, printer);
+    printer.close();
+    String[] rows = table.toString().trim().split("\n");
+//    a row per size and ratio: vertices, depots, total, ratio, edges, and 4 phases
+    Assert.assertTrue(rows.length == 4);
+    String[] row = rows[3].split("\t");
+    Assert.assertTrue(row.length == 9);
+    Assert.assertTrue(row[0].equals("400") && row[1].equals("200") && row[3].equals("0.5"));
+  }
+
+
+
+}
@@ -0,0 +1,132 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+import java.io.*;
+import java.nio.file.*;
+
+
+public class TestGraphSnapshot extends TestCase {
+  private Builder builder;
+  private File file;
+
+  public void setUp() throws Exception {
+    builder = new Builder();
+    file = File.createTempFile("graph", ".snap");
+    file.deleteOnExit();
+  }
+
+
+
+//  the same vertices, edges and adjacency order as the graph saved
+  public void testSaveLoad() throws Exception {
+    NNGraph<Integer, Integer> graph = builder.buildGraph(13);
+    GraphSnapshot.save(graph, file.getPath());
+    NNGraph<Integer, Integer> loaded = GraphSnapshot.load(file.getPath());
+    Assert.assertTrue(loaded.getSizeV() == graph.getSizeV());
+    Assert.assertTrue(loaded.getSizeE() == graph.getSizeE());
+    Assert.assertTrue(loaded.freeze().checksum() == graph.freeze().checksum());
+    for (int v = 0; v < graph.getSizeV(); v++) {
+      Node<Integer, Integer> node = graph.nodeAt(v);
+      Assert.assertTrue(loaded.nodeAt(v).getKey().equals(node.getKey()));
+      Assert.assertTrue(loaded.nodeAt(v).type() == node.type());
+      Assert.assertTrue(loaded.nodeAt(v).getDegree() == node.getDegree());
+    }
+//    the same NN-paths
+    ArrayList<ArrayList<Integer>> paths = graph.runNN();
+    Assert.assertTrue(loaded.runNN().equals(paths));
+  }
+
+
+
+//  a builder with a snapshot directory saves each graph once, then loads it
+  public void testBuilderSnapshots() throws Exception {
+    File directory = Files.createTempDirectory("snapshots").toFile();
+    builder.setSnapshots(directory.getPath());
+    ArrayList<ArrayList<Integer>> built = builder.build(4);
+    File snapshot = new File(GraphSnapshot.fileOf(directory.getPath(), 4));
+    Assert.assertTrue(snapshot.exists());
+    Assert.assertTrue(new Builder().build(4).equals(built));
+    Builder loading = new Builder();
+    loading.setSnapshots(directory.getPath());
+    Assert.assertTrue(loading.build(4).equals(built));
+    snapshot.delete();
+    directory.delete();
+  }
+
+
+
+//  a snapshot of other data files is built again and overwritten, not loaded
+  public void testStale() throws Exception {
+    File directory = Files.createTempDirectory("snapshots").toFile();
+    builder.setSnapshots(directory.getPath());
+    ArrayList<ArrayList<Integer>> built = builder.build(4);
+    String snapshot = GraphSnapshot.fileOf(directory.getPath(), 4);
+    int source = GraphSnapshot.fingerprint(new Importer().dataFiles(4));
+    Assert.assertTrue(GraphSnapshot.sourceOf(snapshot) == source);
+//    another graph in its place, of another fingerprint
+    GraphSnapshot.save(new Builder().buildGraph(13), snapshot, source+1);
+    Builder loading = new Builder();
+    loading.setSnapshots(directory.getPath());
+    Assert.assertTrue(loading.build(4).equals(built));
+    Assert.assertTrue(GraphSnapshot.sourceOf(snapshot) == source);
+    new File(snapshot).delete();
+    directory.delete();
+  }
+
+
+
+//  the fingerprint changes with the length or time of a file, not by reading it
+  public void testFingerprint() throws Exception {
+    Files.write(file.toPath(), "depot 1\nstation 2\n".getBytes());
+    int source = GraphSnapshot.fingerprint(file.getPath());
+    Assert.assertTrue(GraphSnapshot.fingerprint(file.getPath()) == source);
+    Assert.assertTrue(file.setLastModified(file.lastModified() + 2000));
+    int touched = GraphSnapshot.fingerprint(file.getPath());
+    Assert.assertTrue(touched != source);
+    long modified = file.lastModified();
+    Files.write(file.toPath(), "depot 1\nstation 3\nstation 2\n".getBytes());
+    Assert.assertTrue(file.setLastModified(modified));
+    Assert.assertTrue(GraphSnapshot.fingerprint(file.getPath()) != touched);
+//    and with the files given, in order
+    Assert.assertTrue(GraphSnapshot.fingerprint(file.getPath(), file.getPath()) != GraphSnapshot.fingerprint(file.getPath()));
+//    a snapshot saved without one has 0
+    GraphSnapshot.save(builder.buildGraph(4), file.getPath());
+    Assert.assertTrue(GraphSnapshot.sourceOf(file.getPath()) == 0);
+  }
+
+
+
+  public void testCorrupt() throws Exception {
+    GraphSnapshot.save(builder.buildGraph(4), file.getPath());
+    byte[] bytes = Files.readAllBytes(file.toPath());
+//    a flipped byte in the arrays
+    bytes[bytes.length/2] ^= 1;
+    Files.write(file.toPath(), bytes);
+    try {
+      GraphSnapshot.load(file.getPath());
+      Assert.fail();
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage().contains("checksum"));
+    }
+//    truncated
+    Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length-1));
+    try {
+      GraphSnapshot.load(file.getPath());
+      Assert.fail();
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage().contains("truncated"));
+    }
+//    not a snapshot
+    Files.write(file.toPath(), "1 - 2 3\n1 - 2 3\n1 - 2 3\n".getBytes());
+    try {
+      GraphSnapshot.load(file.getPath());
+      Assert.fail();
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage().contains("not a graph snapshot"));
+    }
+  }
+
+
+
+}
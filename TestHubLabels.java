@@ -0,0 +1,78 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestHubLabels extends TestCase {
+  private Graph<Integer, Integer> graph;
+  private CSRGraph<Integer> csr;
+  private HubLabels<Integer> labels;
+  private int size = 60;
+
+  public void setUp() {
+//    a random graph: a line 0-1-...-59, plus random chords, and one isolated vertex
+    graph = GraphFixture.randomGraph(size, 2*size, 30);
+    graph.addNode(-1, -1);
+    csr = graph.freeze();
+    labels = new HubLabels<Integer>(csr);
+  }
+
+
+
+  public void testDistance() {
+//    every pair, same as Dijkstra's; MAX_VALUE to the isolated vertex
+    GraphFixture.assertExact(csr, 1, labels::distanceById);
+//    by key: to the isolated vertex, and to no vertex
+    Assert.assertTrue(labels.distance(0, -1) == Integer.MAX_VALUE);
+    Assert.assertTrue(labels.distance(0, size) == Integer.MAX_VALUE);
+  }
+
+
+
+  public void testUnreachable() {
+//    no hub is shared across the components
+    CSRGraph<Integer> apart = GraphFixture.twoComponents(size/2).freeze();
+    HubLabels<Integer> split = new HubLabels<Integer>(apart);
+    GraphFixture.assertExact(apart, 1, split::distanceById);
+    Assert.assertTrue(split.distance(0, size-1) == Integer.MAX_VALUE);
+  }
+
+
+
+  public void testZeroWeights() {
+//    a hub already at the same distance prunes: the labels stay exact, and small
+    CSRGraph<Integer> zero = GraphFixture.zeroWeights(size).freeze();
+    HubLabels<Integer> ties = new HubLabels<Integer>(zero);
+    GraphFixture.assertExact(zero, 1, ties::distanceById);
+    Assert.assertTrue(ties.averageLabelSize() < size/2);
+  }
+
+
+
+  public void testSize() {
+//    each label has at least the vertex itself; far fewer hubs than vertices
+    int total = 0;
+    for (int v = 0; v < csr.getSizeV(); v++) {
+      Assert.assertTrue(labels.labelSize(v) >= 1);
+      total += labels.labelSize(v);
+    }
+    Assert.assertTrue(labels.averageLabelSize() == (double) total / csr.getSizeV());
+    Assert.assertTrue(labels.averageLabelSize() < size/2);
+    Assert.assertTrue(labels.memoryBytes() == 4L*(2*total + 3*csr.getSizeV() + 1));
+  }
+
+
+
+  public void testGraphDistance() {
+    for (int t = 0; t < size; t += 3) {
+      graph.findShortestPath(0, t);
+      Assert.assertTrue(graph.distance(0, t) == graph.pathLength());
+    }
+//    built again once the graph changes
+    graph.addEdge(0, size-1, 1);
+    Assert.assertTrue(graph.distance(0, size-1) == 1);
+  }
+
+
+}
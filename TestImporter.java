@@ -47,5 +47,29 @@ public class TestImporter extends TestCase {
   }
   
   
+  public void testImportEdges() throws Exception {
+    importer.importGraph(4);
+    final ArrayList<Integer> streamed = new ArrayList<Integer>();
+//    the edges streamed are those of edgeList, in order
+    importer.importEdges(4, (k1, k2, weight) -> {
+      streamed.add(k1);
+      streamed.add(k2);
+      streamed.add(weight);
+    });
+    Assert.assertTrue(streamed.equals(importer.edgeList));
+  }
+  
+  
+//  a graph imported by the paths of its files is the one imported by index
+  public void testImportGraphByPath() throws Exception {
+    importer.importGraph(10);
+    Importer byPath = new Importer();
+    byPath.importGraph("data/medium-1/easy/locations.txt", "data/medium-1/100-1000.pyg");
+    Assert.assertTrue(byPath.depotList.equals(importer.depotList));
+    Assert.assertTrue(byPath.stationList.equals(importer.stationList));
+    Assert.assertTrue(byPath.edgeList.equals(importer.edgeList));
+  }
+  
+  
   
 }
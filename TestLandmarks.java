@@ -0,0 +1,113 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestLandmarks extends TestCase {
+  private Graph<Integer, Integer> graph;
+  private CSRGraph<Integer> csr;
+  private Landmarks<Integer> landmarks;
+  private int size = 60;
+
+  public void setUp() {
+//    a random connected graph: a line 0-1-...-59, plus random chords
+    graph = GraphFixture.randomGraph(size, size, 30);
+    csr = graph.freeze();
+    landmarks = new Landmarks<Integer>(csr, 4);
+  }
+
+
+
+  public void testSelection() {
+//    distinct landmarks, one int per landmark and vertex
+    int[] chosen = landmarks.getLandmarks();
+    Assert.assertTrue(chosen.length == 4);
+    Assert.assertTrue(new HashSet<Integer>(Arrays.asList(chosen[0], chosen[1], chosen[2], chosen[3])).size() == 4);
+    Assert.assertTrue(landmarks.memoryBytes() == 4L*(4*size + 4));
+  }
+
+
+
+  public void testLowerBound() {
+    SearchSpace space = csr.newSearchSpace(VertexQueue.DARY);
+    for (int s = 0; s < size; s += 3) {
+      csr.computeAllPaths(s, space);
+      for (int t = 0; t < size; t++) {
+//        never more than the true distance; exact at the landmarks
+        Assert.assertTrue(landmarks.lowerBound(s, t) <= space.dist(t));
+        Assert.assertTrue(landmarks.lowerBound(t, t) == 0);
+      }
+    }
+    for (int l : landmarks.getLandmarks()) {
+      csr.computeAllPaths(l, space);
+      Assert.assertTrue(landmarks.lowerBound(l, size/2) == space.dist(size/2));
+    }
+  }
+
+
+
+  public void testComputePaths() {
+    SearchSpace dijkstra = csr.newSearchSpace(VertexQueue.DARY);
+    for (int type = 0; type < 3; type++) {
+      SearchSpace space = landmarks.newSearchSpace(type);
+      for (int s = 0; s < size; s += 5) {
+        for (int t = 0; t < size; t += 7) {
+//          same distance as Dijkstra's, checking no more vertices
+          int expDist = csr.computePaths(s, t, dijkstra);
+          Assert.assertTrue(landmarks.computePaths(s, t, space) == expDist);
+          Assert.assertTrue(space.settled() <= dijkstra.settled());
+        }
+      }
+    }
+  }
+
+
+
+  public void testAltMode() {
+    graph.addNode(-1, -1);
+    for (int t = 0; t < size; t += 4) {
+      graph.setSearchMode(Graph.DIJKSTRA);
+      graph.findShortestPath(0, t);
+      int expDist = graph.pathLength();
+      graph.setSearchMode(Graph.ALT);
+      ArrayList<Node<Integer, Integer>> path = graph.findShortestPath(0, t);
+      Assert.assertTrue(graph.pathLength() == expDist);
+      Assert.assertTrue(path.get(path.size()-1).getKey() == t);
+      Assert.assertTrue(graph.settledCount() > 0);
+    }
+//    isolated target: pruned right away, only the target in path
+    Assert.assertTrue(graph.findShortestPath(0, -1).size() == 1);
+    Assert.assertTrue(graph.pathLength() == Integer.MAX_VALUE);
+    Assert.assertTrue(graph.settledCount() == 0);
+  }
+
+
+
+  public void testUnreachable() {
+//    landmarks in one component know no distance to the other: still a lower bound, and exact searches
+    CSRGraph<Integer> apart = GraphFixture.twoComponents(size/2).freeze();
+    Landmarks<Integer> split = new Landmarks<Integer>(apart, 4);
+    SearchSpace dijkstra = apart.newSearchSpace(VertexQueue.DARY);
+    for (int s = 0; s < size; s += 3) {
+      apart.computeAllPaths(s, dijkstra);
+      for (int t = 0; t < size; t++)
+        Assert.assertTrue(split.lowerBound(s, t) <= dijkstra.dist(t));
+    }
+    SearchSpace space = split.newSearchSpace(VertexQueue.DARY);
+    GraphFixture.assertExact(apart, 3, (s, t) -> split.computePaths(s, t, space));
+  }
+
+
+
+  public void testZeroWeights() {
+    CSRGraph<Integer> zero = GraphFixture.zeroWeights(size).freeze();
+    Landmarks<Integer> ties = new Landmarks<Integer>(zero, 4);
+    for (int type = 0; type < 3; type++) {
+      SearchSpace space = ties.newSearchSpace(type);
+      GraphFixture.assertExact(zero, 3, (s, t) -> ties.computePaths(s, t, space));
+    }
+  }
+
+
+}
@@ -0,0 +1,122 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+import java.io.*;
+
+
+public class TestMappedParser extends TestCase {
+  private Importer scanned, mapped;
+
+  public void setUp() throws Exception {
+    scanned = new Importer();
+    scanned.listFile();
+    mapped = new Importer();
+    mapped.listFile();
+    mapped.setMapped(true);
+  }
+
+  private File write(String text) throws IOException {
+    File file = File.createTempFile("parser", ".pyg");
+    file.deleteOnExit();
+    FileWriter writer = new FileWriter(file);
+    writer.write(text);
+    writer.close();
+    return file;
+  }
+
+
+
+//  the same lists as by Scanner, on the data of every size
+  public void testSameAsScanner() throws Exception {
+    for (int i = 1; i <= 27; i += 4) {
+      scanned.importGraph(i);
+      mapped.importGraph(i);
+      Assert.assertTrue(mapped.depotList.equals(scanned.depotList));
+      Assert.assertTrue(mapped.stationList.equals(scanned.stationList));
+      Assert.assertTrue(mapped.edgeList.equals(scanned.edgeList));
+    }
+  }
+
+
+
+  public void testParseEdges() throws Exception {
+//    blank lines, tabs and CRLF are allowed
+    File file = write("380 - 132 48\n\n 1 -\t2  3\r\n-4 - 5 0");
+    int[] edges = new MappedParser(file.getPath()).parseEdges();
+    Assert.assertTrue(Arrays.equals(edges, new int[] {380, 132, 48, 1, 2, 3, -4, 5, 0}));
+    Assert.assertTrue(new MappedParser(write("").getPath()).parseEdges().length == 0);
+  }
+
+
+
+  public void testParseLocations() throws Exception {
+    MappedParser parser = new MappedParser(write("depot 299\nstation 347\nstation 3\n").getPath());
+    parser.parseLocations();
+    Assert.assertTrue(Arrays.equals(parser.depots, new int[] {299}));
+    Assert.assertTrue(Arrays.equals(parser.stations, new int[] {347, 3}));
+  }
+
+
+
+//  any number of chunks gives the edges of a single pass, in order
+  public void testParallel() throws Exception {
+    MappedParser parser = new MappedParser("data/large-1/500-100000.pyg");
+    int[] edges = parser.parseEdges();
+    for (int threads = 2; threads <= 7; threads++)
+      Assert.assertTrue(Arrays.equals(parser.parseEdges(threads), edges));
+//    more threads than lines
+    File file = write("1 - 2 3\n4 - 5 6\n");
+    Assert.assertTrue(Arrays.equals(new MappedParser(file.getPath()).parseEdges(8), new int[] {1, 2, 3, 4, 5, 6}));
+//    and through the importer
+    mapped.setParseThreads(3);
+    scanned.importGraph(25);
+    mapped.importGraph(25);
+    Assert.assertTrue(mapped.edgeList.equals(scanned.edgeList));
+  }
+
+
+
+//  the first malformed line is reported, in any chunk
+  public void testMalformedParallel() throws Exception {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100; i++)
+      text.append("1 - 2 3\n");
+    text.append("4 - 5\n");
+    for (int i = 0; i < 100; i++)
+      text.append("1 - 2 3 x\n");
+    File file = write(text.toString());
+    for (int threads = 1; threads <= 4; threads++) {
+      try {
+        new MappedParser(file.getPath()).parseEdges(threads);
+        Assert.fail();
+      } catch (IOException e) {
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains(":101: malformed line at byte 800"));
+      }
+    }
+  }
+
+
+
+//  the first malformed line is reported, with its number and byte offset
+  public void testMalformed() throws Exception {
+    String[] bad = {"1 - 2 3\n4 - x 5\n", "1 - 2 3\n4 5 6\n", "1 - 2 3\n4 - 5 6 7\n", "1 - 2 3\n4 - 5 99999999999\n", "1 - 2 3\n4 - 5\n"};
+    for (String text : bad) {
+      try {
+        new MappedParser(write(text).getPath()).parseEdges();
+        Assert.fail(text);
+      } catch (IOException e) {
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains(":2: malformed line at byte 8"));
+      }
+    }
+    try {
+      new MappedParser(write("depot 1\n\nplace 2\n").getPath()).parseLocations();
+      Assert.fail();
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains(":3: malformed line at byte 9"));
+    }
+  }
+
+
+
+}
@@ -103,6 +103,46 @@ public class TestNNGraph extends TestCase {
   
   
   
+  public void testForestReduce() {
+//    p1 and p5 leave -1 by different vertices: not a forest, nothing changed
+    Assert.assertFalse(graph.forestReduce());
+    Assert.assertTrue(listOfPaths.size() == 5);
+//    and REDUCE_FOREST falls back to the same result
+    graph.setReduceMode(NNGraph.REDUCE_FOREST);
+    ArrayList<ArrayList<Integer>> reduced = graph.pathReduce();
+    Assert.assertTrue(reduced.size() == 3 && reduced.get(0).equals(p1) && reduced.get(2).equals(p5));
+
+//    a forest: two depots, an isolated station and a duplicate
+    ArrayList<Integer> p6 = new ArrayList<Integer>(Arrays.asList(6, 3, 4, 5));
+    ArrayList<Integer> p7 = new ArrayList<Integer>(Arrays.asList(7, 8));
+    List<ArrayList<Integer>> forest = Arrays.asList(p3, p7, p2, p4, p6, new ArrayList<Integer>(), p3);
+    graphAnew.listOfPaths = new ArrayList<ArrayList<Integer>>(forest);
+    Assert.assertTrue(graphAnew.forestReduce());
+    Assert.assertTrue(graphAnew.listOfPaths.isEmpty());
+//    same as pairwise: depot 5 first, longest first; p3, p4 are sublists of p2
+    Assert.assertTrue(graphAnew.reducedPaths.equals(Arrays.asList(p2, p6, p7)));
+    NNGraph<Integer, Integer> pairwise = new NNGraph<Integer, Integer>();
+    pairwise.listOfPaths = new ArrayList<ArrayList<Integer>>(forest);
+    Assert.assertTrue(pairwise.pathReduce().equals(graphAnew.reducedPaths));
+  }
+  
+  
+  
+  
+  public void testParallelReduce() {
+//    same paths in the same order as testPathReduce
+    graph.setReduceMode(NNGraph.REDUCE_PARALLEL);
+    ArrayList<ArrayList<Integer>> reduced = graph.pathReduce();
+    Assert.assertTrue(reduced.size() == 3);
+    Assert.assertTrue(reduced.get(0).equals(p1));
+    Assert.assertTrue(reduced.get(1).equals(p2));
+    Assert.assertTrue(reduced.get(2).equals(p5));
+    Assert.assertTrue(graph.listOfPaths.isEmpty());
+  }
+  
+  
+  
+  
   public void testPollPathsOfSameDepot() {
     Assert.assertTrue(listOfPaths.size() == 5);
     
@@ -197,6 +237,93 @@ public class TestNNGraph extends TestCase {
   
   
   
+  public void testComputeFromAllDepots() {
+//    grow one forest from both depots; station2 lies on the path of station1, so shall have two paths
+    graph.setMultiSource(true);
+    ArrayList<ArrayList<Integer>> paths = graph.computeAllStations();
+    Assert.assertTrue(paths.size() == 2);
+//    path 1-2-4 and path 3-5, same as searching from each station
+    Assert.assertTrue(paths.get(0).equals(Arrays.asList(1, 2, 4)));
+    Assert.assertTrue(paths.get(1).equals(Arrays.asList(3, 5)));
+//    all stations computed
+    Assert.assertTrue(graph.stationsToCompute.size() == 0);
+    
+//    an isolated station gets an empty path, which is removed on reduce
+    graphAnew.addNode(1, 1, -1);
+    graphAnew.setMultiSource(true);
+    Assert.assertTrue(graphAnew.computeAllStations().get(0).size() == 0);
+    Assert.assertTrue(graphAnew.pathReduce().size() == 0);
+  }
+
+
+
+
+
+  public void testMultiSourceOnData() throws Exception {
+//    searching from each station drops every station checked before its depot, so fewer paths than the forest, which only skips stations on a recorded path
+    int[] graphs = {2, 15}, eachStation = {5, 19}, allDepots = {6, 24};
+    for (int i = 0; i < graphs.length; i++) {
+      Assert.assertTrue(new Builder().build(graphs[i]).size() == eachStation[i]);
+      Builder builder = new Builder();
+      builder.setMultiSource(true);
+      ArrayList<ArrayList<Integer>> paths = builder.build(graphs[i]);
+      Assert.assertTrue(paths.size() == allDepots[i]);
+
+//      each path still ends at a closest depot: its distance is that of a search from its station
+      NNGraph<Integer, Integer> data = new Builder().buildGraph(graphs[i]);
+      HashSet<Integer> covered = new HashSet<Integer>();
+      for (ArrayList<Integer> path : paths) {
+        Integer station = path.get(path.size()-2);
+        Node<Integer, Integer> depot = data.findClosestDepot(data.getNode(station));
+        Assert.assertTrue(depot.minDistance == path.get(path.size()-1));
+        covered.addAll(path.subList(0, path.size()-1));
+      }
+//      and every station lies on a path
+      Assert.assertTrue(covered.containsAll(data.stations));
+    }
+  }
+
+
+
+
+
+  public void testFrozenFromEachStation() throws Exception {
+//    the frozen searches drop the same stations, so give the same paths in the same order
+    ArrayList<ArrayList<Integer>> paths = new ArrayList<ArrayList<Integer>>(graph.computeAllStations());
+    graph.setFrozenSearch(true);
+    graph.stationsToCompute = new ArrayList<Integer>(graph.stations);
+    Assert.assertTrue(graph.computeAllStations().equals(paths));
+    Assert.assertTrue(graph.stationsToCompute.size() == 0);
+//    an isolated station gets an empty path
+    graphAnew.addNode(1, 1, -1);
+    graphAnew.setFrozenSearch(true);
+    Assert.assertTrue(graphAnew.computeAllStations().get(0).size() == 0);
+
+    for (int i : new int[]{2, 15, 19}) {
+      Builder frozen = new Builder();
+      frozen.setFrozenSearch(true);
+      Assert.assertTrue(frozen.build(i).equals(new Builder().build(i)));
+    }
+  }
+
+  
+  
+  
+  
+  public void testRerunNN() {
+    Assert.assertTrue(graph.runNN().size() == 2);
+//    edge 4-3 now shorter than 3-5: station3 goes to depot4 instead
+    Assert.assertTrue(graph.setWeight(4, 3, 1));
+    ArrayList<ArrayList<Integer>> paths = graph.rerunNN();
+    Assert.assertTrue(paths.size() == 2);
+    Assert.assertTrue(paths.contains(Arrays.asList(3, 4)));
+    Assert.assertTrue(graph.stationsToCompute.size() == 0);
+  }
+  
+  
+  
+  
+  
   public void testFindClosestDepot() {
 //    given the example graph, depot4 is closest to station1 and station2
     Assert.assertTrue(graph.findClosestDepot(station1).isDuplicate(depot4));
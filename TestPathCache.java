@@ -0,0 +1,83 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestPathCache extends TestCase {
+  private Graph<Integer, Integer> graph;
+  private PathCache cache;
+  private int size = 30;
+
+  public void setUp() {
+//    a line 0-1-...-29 of unit edges
+    graph = new Graph<Integer, Integer>();
+    for (int i = 0; i < size; i++)
+      graph.addNode(i, i);
+    for (int i = 0; i < size-1; i++)
+      graph.addEdge(i, i+1, 1);
+    cache = new PathCache(1000);
+  }
+
+
+
+  public void testGetPut() {
+    Assert.assertTrue(cache.get(0, 5, 1) == null);
+    cache.put(0, 5, 1, 5, new int[] {0, 1, 2, 3, 4, 5});
+    Assert.assertTrue(cache.get(0, 5, 1).distance == 5);
+//    keyed by direction
+    Assert.assertTrue(cache.get(5, 0, 1) == null);
+    Assert.assertTrue(cache.hits() == 1 && cache.misses() == 2);
+    Assert.assertTrue(cache.memoryBytes() == PathCache.ENTRY_BYTES + 4*6);
+//    another version: dropped
+    Assert.assertTrue(cache.get(0, 5, 2) == null);
+    Assert.assertTrue(cache.size() == 0 && cache.invalidations() == 1);
+  }
+
+
+
+  public void testEviction() {
+//    room for 7 entries of 5 ids
+    int entry = PathCache.ENTRY_BYTES + 4*5;
+    cache = new PathCache(7*entry + entry/2);
+    for (int i = 0; i < 7; i++)
+      cache.put(i, i, 1, 0, new int[5]);
+//    touch entry 0, so entry 1 is the least recently used
+    cache.get(0, 0, 1);
+    cache.put(7, 7, 1, 0, new int[5]);
+    Assert.assertTrue(cache.size() == 7 && cache.evictions() == 1);
+    Assert.assertTrue(cache.get(0, 0, 1) != null);
+    Assert.assertTrue(cache.get(1, 1, 1) == null);
+    Assert.assertTrue(cache.memoryBytes() == 7*entry);
+//    larger than the bound: not cached
+    cache.put(8, 8, 1, 0, new int[1000]);
+    Assert.assertTrue(cache.get(8, 8, 1) == null);
+  }
+
+
+
+  public void testGraphCache() {
+    graph.setPathCache(1 << 20);
+    ArrayList<Node<Integer, Integer>> path = graph.findShortestPath(0, size-1);
+    ArrayList<Node<Integer, Integer>> cached = graph.findShortestPath(0, size-1);
+//    same path, no search
+    Assert.assertTrue(cached.equals(path) && graph.pathLength() == size-1);
+    Assert.assertTrue(graph.settledCount() == 0);
+    Assert.assertTrue(graph.getPathCache().hits() == 1);
+
+//    a shorter edge: not served from the cache
+    graph.addEdge(0, size-1, 3);
+    Assert.assertTrue(graph.findShortestPath(0, size-1).size() == 2);
+    Assert.assertTrue(graph.pathLength() == 3);
+//    a longer weight
+    graph.setWeight(0, size-1, 100);
+    graph.findShortestPath(0, size-1);
+    Assert.assertTrue(graph.pathLength() == size-1);
+    Assert.assertTrue(graph.getPathCache().hits() == 1 && graph.getPathCache().invalidations() == 2);
+
+    graph.setPathCache(0);
+    Assert.assertTrue(graph.getPathCache() == null);
+  }
+
+
+}
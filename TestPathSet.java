@@ -0,0 +1,65 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestPathSet extends TestCase {
+  private PathSet paths;
+
+  public void setUp() {
+//    small capacities, to grow
+    paths = new PathSet(1, 1);
+    paths.addVertex(4);
+    paths.addVertex(2);
+    paths.addVertex(1);
+    paths.endPath(30);
+//    an empty path, as an isolated station gives
+    paths.endPath(0);
+    paths.addVertex(5);
+    paths.addVertex(3);
+    paths.endPath(5);
+  }
+
+
+
+  public void testAccess() {
+    Assert.assertTrue(paths.size() == 3);
+    Assert.assertTrue(paths.length(0) == 3 && paths.length(1) == 0 && paths.length(2) == 2);
+    Assert.assertTrue(paths.vertex(0, 0) == 4 && paths.vertex(0, 2) == 1 && paths.vertex(2, 1) == 3);
+    Assert.assertTrue(paths.distance(0) == 30 && paths.distance(2) == 5);
+    PathSet.Path path = paths.get(2);
+    Assert.assertTrue(path.index() == 2 && path.length() == 2 && path.vertex(0) == 5 && path.distance() == 5);
+  }
+
+
+
+  public void testIterator() {
+    int count = 0, keys = 0;
+    for (PathSet.Path path : paths) {
+      Assert.assertTrue(path.index() == count++);
+      keys += path.length();
+    }
+    Assert.assertTrue(count == 3 && keys == 5);
+    Assert.assertTrue(paths.toLists().equals(Arrays.asList(Arrays.asList(4, 2, 1, 30), Arrays.asList(0), Arrays.asList(5, 3, 5))));
+  }
+
+
+
+//  the paths of a graph, the same as formatted by Builder
+  public void testBuilder() throws Exception {
+    for (int i = 10; i <= 12; i++) {
+      Builder flat = new Builder();
+      flat.setFlatPaths(true);
+      ArrayList<ArrayList<Integer>> reduced = new ArrayList<ArrayList<Integer>>(flat.build(i));
+      PathSet pathSet = flat.getPathSet();
+      Assert.assertTrue(pathSet.toLists().equals(new Builder().build(i)));
+//      the reduced paths are left as they are, from station to depot
+      Assert.assertTrue(pathSet.size() == reduced.size());
+      Assert.assertTrue(pathSet.vertex(0, 0) == reduced.get(0).get(reduced.get(0).size()-1));
+    }
+  }
+
+
+
+}
@@ -0,0 +1,95 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestQueryEngine extends TestCase {
+  private Graph<Integer, Integer> graph;
+  private QueryEngine<Integer> engine;
+  private int size = 50;
+
+  public void setUp() {
+//    a random connected graph: a line 0-1-...-49, plus random chords
+    graph = GraphFixture.randomGraph(size, 2*size, 20);
+    engine = new QueryEngine<Integer>(graph.freeze(), VertexQueue.DARY, 4);
+  }
+
+  public void tearDown() {
+    engine.close();
+  }
+
+
+
+  public void testDistance() {
+//    agrees with findShortestPath on the nodes
+    for (int i = 0; i < size; i += 7) {
+      for (int j = 0; j < size; j += 5) {
+        graph.findShortestPath(i, j);
+        Assert.assertTrue(engine.distanceById(i, j) == graph.pathLength());
+//        and by key, autoboxed: the keys are the ids here
+        Assert.assertTrue(engine.distance(i, j) == graph.pathLength());
+      }
+    }
+  }
+
+
+
+  public void testPath() {
+    ArrayList<Node<Integer, Integer>> expected = graph.findShortestPath(3, 41);
+    int[] path = engine.path(3, 41);
+    Assert.assertTrue(path.length == expected.size());
+//    starts at source, ends at target, and sums to the distance
+    Assert.assertTrue(path[0] == 3 && path[path.length-1] == 41);
+    int distance = 0;
+    for (int i = 0; i < path.length-1; i++)
+      distance += graph.getEdge(path[i], path[i+1]);
+    Assert.assertTrue(distance == graph.pathLength());
+  }
+
+
+
+  public void testBatch() {
+//    batch answers equal single answers, in order
+    int queries = 500;
+    int[] sources = new int[queries], targets = new int[queries];
+    Random random = new Random(7);
+    for (int i = 0; i < queries; i++) {
+      sources[i] = random.nextInt(size);
+      targets[i] = random.nextInt(size);
+    }
+    int[] distances = engine.distances(sources, targets);
+    int[][] paths = engine.paths(sources, targets);
+    for (int i = 0; i < queries; i++) {
+      Assert.assertTrue(distances[i] == engine.distanceById(sources[i], targets[i]));
+      Assert.assertTrue(paths[i][0] == sources[i]);
+      Assert.assertTrue(paths[i][paths[i].length-1] == targets[i]);
+    }
+  }
+
+
+
+  public void testNoPath() {
+    graph.addNode(-1, -1);
+    engine.close();
+    engine = new QueryEngine<Integer>(graph.freeze());
+//    unreachable: distance max value, path has only the target
+    int isolated = graph.getNode(-1).getId();
+    Assert.assertTrue(engine.distanceById(0, isolated) == Integer.MAX_VALUE);
+    Assert.assertTrue(engine.path(0, isolated).length == 1);
+  }
+
+
+
+  public void testZeroWeights() {
+//    ties everywhere: the same distances with every queue, the bucket queue included
+    CSRGraph<Integer> csr = GraphFixture.zeroWeights(size).freeze();
+    for (int type = 0; type < 3; type++) {
+      QueryEngine<Integer> zero = new QueryEngine<Integer>(csr, type, 2);
+      GraphFixture.assertExact(csr, 1, zero::distanceById);
+      zero.close();
+    }
+  }
+
+
+}
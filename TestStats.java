@@ -0,0 +1,107 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestStats extends TestCase {
+  private NNGraph<Integer, Integer> graph;
+
+//  Note Stats.ENABLED is fixed for the JVM: these tests check the counters when run with -Dgraph.stats=true, as by "make test-stats",
+//  and that nothing is counted otherwise, as by "make test"
+  public void setUp() {
+//    stations 1, 2; depot 3: 1-2-3, and a longer 1-3
+    graph = new NNGraph<Integer, Integer>();
+    graph.addNode(1, 1, -1);
+    graph.addNode(2, 2, -1);
+    graph.addNode(3, 3, 1);
+    graph.addEdge(1, 2, 1);
+    graph.addEdge(2, 3, 1);
+    graph.addEdge(1, 3, 5);
+  }
+
+
+
+  public void testSearch() {
+    graph.runNN();
+    Stats stats = graph.getStats();
+    if (!Stats.ENABLED) {
+      Assert.assertTrue(stats.settled() == 0 && stats.heapOperations() == 0);
+      Assert.assertTrue(stats.phaseNanos(Stats.COMPUTE) == 0);
+      return;
+    }
+//    one search from 1, through 2, to 3; 2 is on the path so not searched from
+    Assert.assertTrue(stats.searches() == 1);
+    Assert.assertTrue(stats.resets() == 3);
+    Assert.assertTrue(stats.settled() == 3 && stats.polls() == 3);
+//    1-2, 1-3 from 1; 2-3 from 2, a decrease-key of 3
+    Assert.assertTrue(stats.relaxations() == 3);
+    Assert.assertTrue(stats.inserts() == 3);
+    Assert.assertTrue(stats.decreaseKeys() == 1);
+    Assert.assertTrue(stats.phaseNanos(Stats.COMPUTE) > 0);
+  }
+
+
+
+//  the frozen view counts the same search alike, but resets nothing
+  public void testFrozen() {
+    graph.setMultiSource(true);
+    graph.setFrozenSearch(true);
+    graph.runNN();
+    Stats stats = graph.getStats();
+    if (!Stats.ENABLED) {
+      Assert.assertTrue(stats.settled() == 0);
+      return;
+    }
+    Assert.assertTrue(stats.resets() == 0);
+    Assert.assertTrue(stats.settled() == 3);
+//    seeded at 3; 3-2, 3-1; 2-1, a decrease-key of 1
+    Assert.assertTrue(stats.relaxations() == 3);
+    Assert.assertTrue(stats.inserts() == 3 && stats.decreaseKeys() == 1);
+  }
+
+
+
+//  every search mode of findShortestPath() counts its relaxations
+  public void testSearchModes() {
+    Graph<Integer, Integer> random = GraphFixture.randomGraph(60, 120, 30);
+    int[] modes = {Graph.DIJKSTRA, Graph.BIDIRECTIONAL, Graph.ALT, Graph.CH};
+    for (int frozen = 0; frozen < 2; frozen++) {
+      for (int mode : modes) {
+        Stats stats = new Stats();
+        random.setStats(stats);
+        random.setFrozenSearch(frozen == 1);
+        random.setSearchMode(mode);
+        random.findShortestPath(0, 59);
+        if (Stats.ENABLED)
+          Assert.assertTrue(stats.relaxations() > 0 && stats.settled() > 0);
+        else
+          Assert.assertTrue(stats.relaxations() == 0);
+      }
+    }
+  }
+
+
+
+  public void testBuilder() throws Exception {
+    Builder builder = new Builder();
+    builder.build(13);
+    Stats stats = builder.getStats();
+    Assert.assertTrue(builder.graph.getStats() == stats);
+    if (!Stats.ENABLED) {
+      Assert.assertTrue(stats.toString().contains("0 settled"));
+      return;
+    }
+    for (int phase = 0; phase < Stats.PHASES.length; phase++)
+      Assert.assertTrue(stats.phaseNanos(phase) > 0);
+    Assert.assertTrue(stats.searches() > 0 && stats.sublistChecks() > 0);
+    Assert.assertTrue(stats.polls() <= stats.inserts());
+//    counted afresh for each graph built
+    long settled = stats.settled();
+    builder.build(13);
+    Assert.assertTrue(stats.settled() == settled);
+  }
+
+
+
+}
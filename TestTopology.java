@@ -0,0 +1,79 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestTopology extends TestCase {
+//  repeated, shorter and longer edges, both directions, a self-loop, and key 9 in no location set
+  private int[] edges = {1, 2, 5,  2, 3, 4,  2, 1, 3,  1, 2, 7,  3, 3, 1,  9, 1, 2,  3, 4, 6,  4, 3, 2,  1, 4, 8,  3, 3, 0};
+  private Topology topology;
+
+  public void setUp() {
+    topology = new Topology(edges);
+  }
+
+//  the graph Builder builds: nodes, then the valid edges in file order
+  private NNGraph<Integer, Integer> build(List<Integer> depots, List<Integer> stations) {
+    NNGraph<Integer, Integer> graph = new NNGraph<Integer, Integer>();
+    for (int key : depots)
+      graph.addNode(key, key, 1);
+    for (int key : stations)
+      graph.addNode(key, key, -1);
+    for (int i = 0; i < edges.length; i += 3) {
+      if (graph.getNode(edges[i]) != null && graph.getNode(edges[i+1]) != null)
+        graph.addEdge(edges[i], edges[i+1], edges[i+2]);
+    }
+    return graph;
+  }
+
+  private void assertSame(NNGraph<Integer, Integer> expected, NNGraph<Integer, Integer> overlay) {
+    Assert.assertTrue(overlay.getSizeV() == expected.getSizeV());
+    Assert.assertTrue(overlay.getSizeE() == expected.getSizeE());
+    for (int v = 0; v < expected.getSizeV(); v++) {
+      Node<Integer, Integer> node = expected.nodeAt(v);
+      Assert.assertTrue(overlay.nodeAt(v).getKey().equals(node.getKey()));
+      Assert.assertTrue(overlay.nodeAt(v).type() == node.type());
+    }
+//    same arcs, in the same order
+    Assert.assertTrue(overlay.freeze().checksum() == expected.freeze().checksum());
+  }
+
+
+
+  public void testTopology() {
+    Assert.assertTrue(topology.getSizeV() == 5);
+//    1-2, 2-3, 3-3, 9-1, 3-4, 1-4: 11 arcs
+    Assert.assertTrue(topology.targets.length == 11);
+  }
+
+
+
+  public void testOverlay() {
+    List<Integer> depots = Arrays.asList(3, 1);
+    List<Integer> stations = Arrays.asList(2, 4, 3, 5);
+    assertSame(build(depots, stations), topology.overlay(depots, stations));
+//    another location set of the same topology
+    depots = Arrays.asList(4);
+    stations = Arrays.asList(1, 9, 2);
+    assertSame(build(depots, stations), topology.overlay(depots, stations));
+  }
+
+
+
+//  the graphs of a batch, cut from one topology, are those built from the files
+  public void testSharedBuilder() throws Exception {
+    Builder shared = new Builder();
+    shared.setSharedTopology(true);
+    for (int i = 13; i <= 15; i++) {
+      NNGraph<Integer, Integer> graph = shared.buildGraph(i);
+      ArrayList<ArrayList<Integer>> paths = shared.buildNN();
+      Builder builder = new Builder();
+      assertSame(builder.buildGraph(i), graph);
+      Assert.assertTrue(builder.buildNN().equals(paths));
+    }
+  }
+
+
+
+}
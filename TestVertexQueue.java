@@ -0,0 +1,115 @@
+import junit.framework.TestCase;
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.*;
+
+
+public class TestVertexQueue extends TestCase {
+  private int[] types = {VertexQueue.PRIORITY, VertexQueue.DARY, VertexQueue.BUCKET};
+  private int size = 200, maxWeight = 50;
+
+  public void setUp() {
+  }
+
+
+
+  public void testPollInOrder() {
+    for (int type : types) {
+      VertexQueue queue = VertexQueue.create(type, size, maxWeight);
+      Assert.assertTrue(queue.isEmpty());
+//      offer all vertices with keys in the bucket range
+      Random random = new Random(type);
+      int[] key = new int[size];
+      for (int v = 0; v < size; v++) {
+        key[v] = random.nextInt(maxWeight+1);
+        queue.offer(v, key[v]);
+      }
+      Assert.assertTrue(queue.size() == size);
+
+//      polled keys shall be non-decreasing, each vertex polled once
+      boolean[] polled = new boolean[size];
+      int last = 0;
+      while (!queue.isEmpty()) {
+        int min = queue.minKey();
+        int v = queue.poll();
+        Assert.assertTrue(key[v] == min);
+        Assert.assertTrue(min >= last);
+        Assert.assertFalse(polled[v]);
+        polled[v] = true;
+        last = min;
+      }
+    }
+  }
+
+
+
+  public void testDecreaseKey() {
+    for (int type : types) {
+      VertexQueue queue = VertexQueue.create(type, size, maxWeight);
+      queue.offer(1, 30);
+      queue.offer(2, 20);
+      queue.offer(3, 10);
+//      decrease-key of vertex 1 moves it to the front, not a duplicate
+      queue.offer(1, 5);
+      Assert.assertTrue(queue.size() == 3);
+      Assert.assertTrue(queue.minKey() == 5);
+      Assert.assertTrue(queue.poll() == 1);
+      Assert.assertTrue(queue.poll() == 3);
+      Assert.assertTrue(queue.poll() == 2);
+      Assert.assertTrue(queue.isEmpty());
+    }
+  }
+
+
+
+  public void testClear() {
+    for (int type : types) {
+      VertexQueue queue = VertexQueue.create(type, size, maxWeight);
+      for (int v = 0; v < 10; v++)
+        queue.offer(v, v);
+      queue.clear();
+      Assert.assertTrue(queue.isEmpty());
+//      reusable after clear
+      queue.offer(3, 7);
+      Assert.assertTrue(queue.size() == 1);
+      Assert.assertTrue(queue.poll() == 3);
+    }
+  }
+
+
+
+  public void testBucketRange() {
+    VertexQueue queue = VertexQueue.create(VertexQueue.BUCKET, size, maxWeight);
+    queue.offer(0, 100);
+//    a key further than maxWeight past the least key is rejected
+    try {
+      queue.offer(1, 100 + maxWeight + 1);
+      Assert.fail("key out of range accepted");
+    }
+    catch (IllegalArgumentException e) {
+    }
+  }
+
+
+
+  public void testDijkstraAllTypes() {
+//    the same shortest path on the TestNNGraph sample, whichever the queue
+    for (int type : types) {
+      NNGraph<Integer, Integer> graph = new NNGraph<Integer, Integer>();
+      for (int i = 1; i < 4; i++)
+        graph.addNode(i, i, -1);
+      graph.addNode(4, 4, 1);
+      graph.addNode(5, 5, 1);
+      graph.addEdge(1, 2, 10);
+      graph.addEdge(2, 4, 20);
+      graph.addEdge(4, 3, 50);
+      graph.addEdge(3, 5, 5);
+      graph.setQueueType(type);
+      Assert.assertTrue(graph.findShortestPath(1, 3).size() == 4);
+      Assert.assertTrue(graph.pathLength() == 80);
+      Assert.assertTrue(graph.findClosestDepot(graph.getNode(3)).getKey() == 5);
+    }
+  }
+
+
+}
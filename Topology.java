@@ -0,0 +1,177 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * The graph of a whole edge file, laid out once in frozen arrays and shared by the graphs of its batch, i.e. of its easy, medium and hard location sets.
+ * Each of those graphs is an overlay: the vertices of its location set, with their types, and the edges of the topology between them.
+ * An overlay is cut from the frozen arrays without parsing or the duplicate checks of addEdge(), and equals the graph Builder would build from the files:
+ * the same vertex ids, adjacency order, weights and edge count, so the NN-paths are the same too.
+ */
+public class Topology {
+	/** Every key of the edge file, by id in order of first appearance; and id of each key */
+	protected final int[] keys;
+	protected final HashMap<Integer, Integer> ids;
+	/** Arcs of vertex v are at offsets[v] to offsets[v+1]-1, in the order Graph.addEdge() would give them */
+	protected final int[] offsets;
+	/** Target vertex id and weight of each arc */
+	protected final int[] targets, weights;
+	/** For each arc, the number of lines of the file that added or shortened its edge, i.e. its share of getSizeE() */
+	protected final int[] arcAdds;
+
+	/**
+	 * Constructor.
+	 * Take all edges, valid in a location set or not, by the rules of Graph.addEdge(): the first line of an edge adds it, a later line only shortens it;
+	 * then lay them out as arcs, each vertex's in the order its edges were added.
+	 * @param  edges The triples <node1>, <node2>, <weight> of the edge file, in file order.
+	 */
+	Topology(int[] edges) {
+		int lines = edges.length/3;
+		// ids of the keys in order of first appearance, and of the ends of each line
+		ids = new HashMap<Integer, Integer>();
+		int[] keys = new int[64];
+		int sizeV = 0;
+		int[] lineEnds = new int[2*lines];
+		for (int i = 0; i < 2*lines; i++) {
+			int key = edges[3*(i/2) + i%2];
+			Integer id = ids.get(key);
+			if (id == null) {
+				if (sizeV == keys.length)
+					keys = Arrays.copyOf(keys, 2*sizeV);
+				keys[sizeV] = key;
+				id = sizeV++;
+				ids.put(key, id);
+			}
+			lineEnds[i] = id;
+		}
+		this.keys = Arrays.copyOf(keys, sizeV);
+
+		// distinct edges in order of adding: ends, weight, lines that added or shortened it
+		HashMap<Long, Integer> edgeOf = new HashMap<Long, Integer>();
+		int[] ends = new int[2*lines], weight = new int[lines], adds = new int[lines];
+		int sizeE = 0;
+		for (int i = 0; i < lines; i++) {
+			int u = lineEnds[2*i], v = lineEnds[2*i+1], w = edges[3*i+2];
+			Integer e = edgeOf.get(((long) Math.min(u, v) << 32) | Math.max(u, v));
+			if (e == null) {
+				edgeOf.put(((long) Math.min(u, v) << 32) | Math.max(u, v), sizeE);
+				ends[2*sizeE] = u;
+				ends[2*sizeE+1] = v;
+				weight[sizeE] = w;
+				// a self-loop is never counted by Graph.addEdge()
+				adds[sizeE] = (u == v) ? 0 : 1;
+				sizeE++;
+			}
+			else if (w < weight[e]) {
+				weight[e] = w;
+				if (u != v)
+					adds[e]++;
+			}
+		}
+
+		// arcs: two per edge, one per self-loop
+		offsets = new int[sizeV+1];
+		for (int e = 0; e < sizeE; e++) {
+			offsets[ends[2*e]+1]++;
+			if (ends[2*e] != ends[2*e+1])
+				offsets[ends[2*e+1]+1]++;
+		}
+		for (int v = 0; v < sizeV; v++)
+			offsets[v+1] += offsets[v];
+		targets = new int[offsets[sizeV]];
+		weights = new int[offsets[sizeV]];
+		arcAdds = new int[offsets[sizeV]];
+		int[] next = Arrays.copyOf(offsets, sizeV);
+		for (int e = 0; e < sizeE; e++) {
+			int u = ends[2*e], v = ends[2*e+1];
+			int arc = next[u]++;
+			targets[arc] = v;
+			weights[arc] = weight[e];
+			arcAdds[arc] = adds[e];
+			if (u != v) {
+				arc = next[v]++;
+				targets[arc] = u;
+				weights[arc] = weight[e];
+				arcAdds[arc] = adds[e];
+			}
+		}
+	}
+
+	/**
+	 * @return sizeV The number of keys in the edge file.
+	 */
+	public int getSizeV() {
+		return keys.length;
+	}
+
+	/**
+	 * Cut the graph of a location set, as Builder builds it: depots then stations in order, a repeated key kept as first added.
+	 * Each vertex gets the arcs of the topology to other vertices of the set, in the same order; a key not in the edge file gets none.
+	 * @param  depots   Keys of the depots.
+	 * @param  stations Keys of the stations.
+	 * @return graph The NNGraph of the set, with its frozen view already built.
+	 */
+	public NNGraph<Integer, Integer> overlay(List<Integer> depots, List<Integer> stations) {
+		NNGraph<Integer, Integer> overlay = new NNGraph<Integer, Integer>();
+		for (int key : depots)
+			overlay.addNode(key, key, 1);
+		for (int key : stations)
+			overlay.addNode(key, key, -1);
+		int sizeV = overlay.getSizeV();
+
+		// topology id of each overlay vertex, -1 if not in the file; and back
+		int[] from = new int[sizeV];
+		int[] to = new int[getSizeV()];
+		Arrays.fill(to, -1);
+		int arcs = 0;
+		for (int v = 0; v < sizeV; v++) {
+			Integer id = ids.get(overlay.nodeAt(v).getKey());
+			from[v] = (id == null) ? -1 : id;
+			if (from[v] != -1)
+				to[from[v]] = v;
+		}
+		// the arcs kept, counted first
+		for (int v = 0; v < sizeV; v++) {
+			int t = from[v];
+			if (t == -1)
+				continue;
+			for (int arc = offsets[t]; arc < offsets[t+1]; arc++) {
+				if (to[targets[arc]] != -1)
+					arcs++;
+			}
+		}
+		int[] cutOffsets = new int[sizeV+1];
+		int[] cutTargets = new int[arcs];
+		int[] cutWeights = new int[arcs];
+		int sizeE = 0;
+		for (int v = 0; v < sizeV; v++) {
+			int t = from[v];
+			int n = cutOffsets[v];
+			cutOffsets[v+1] = n;
+			if (t == -1)
+				continue;
+			for (int arc = offsets[t]; arc < offsets[t+1]; arc++) {
+				int w = to[targets[arc]];
+				if (w != -1) {
+					cutTargets[n] = w;
+					cutWeights[n] = weights[arc];
+					n++;
+					// each edge once, from its lesser end
+					if (t < targets[arc])
+						sizeE += arcAdds[arc];
+				}
+			}
+			cutOffsets[v+1] = n;
+		}
+		overlay.loadArcs(cutOffsets, cutTargets, cutWeights, sizeE);
+		return overlay;
+	}
+
+	/**
+	 * @return bytes The approximate heap size of the arrays, excluding the key index.
+	 */
+	public long memoryBytes() {
+		return 4L*(keys.length + offsets.length + targets.length + weights.length + arcAdds.length);
+	}
+}
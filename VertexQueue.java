@@ -0,0 +1,119 @@
+import java.util.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * The min-priority queue of vertex ids used by Dijkstra's algorithm.
+ * A vertex is in the queue at most once; offering it again with a smaller key is a decrease-key.
+ * Vertex ids are dense, from 0 to capacity-1, so implementations can index plain arrays by them.
+ */
+public interface VertexQueue {
+	/** java.util.PriorityQueue, decrease-key by remove and add; the original behaviour */
+	int PRIORITY = 0;
+	/** Indexed d-ary heap, O(log n) decrease-key */
+	int DARY = 1;
+	/** Dial's bucket queue, for small non-negative integer weights */
+	int BUCKET = 2;
+
+	/**
+	 * Insert a vertex, or update its key if already in the queue.
+	 * @param v   Id of the vertex.
+	 * @param key Its priority, i.e. minDistance.
+	 */
+	void offer(int v, int key);
+
+	/**
+	 * Remove the vertex with the least key.
+	 * @return v Its id.
+	 */
+	int poll();
+
+	/**
+	 * @return key The least key in the queue; must not be empty.
+	 */
+	int minKey();
+
+	/**
+	 * @return size The number of vertices in the queue.
+	 */
+	int size();
+
+	/**
+	 * @return true If the queue is empty; false otherwise.
+	 */
+	boolean isEmpty();
+
+	/**
+	 * Remove all vertices, keeping the storage for reuse.
+	 */
+	void clear();
+
+
+	/**
+	 * Create a queue of the specified type.
+	 * @param  type      PRIORITY, DARY or BUCKET.
+	 * @param  capacity  The number of vertices, i.e. ids are 0 to capacity-1.
+	 * @param  maxWeight The largest edge weight; bounds how far a new key can be past the last one polled (BUCKET only).
+	 * @return queue The new, empty queue.
+	 */
+	static VertexQueue create(int type, int capacity, int maxWeight) {
+		switch (type) {
+			case PRIORITY:
+				return new PriorityVertexQueue(capacity);
+			case DARY:
+				return new DaryHeap(capacity, 4);
+			case BUCKET:
+				return new BucketQueue(capacity, maxWeight);
+			default:
+				throw new IllegalArgumentException("Unknown queue type " + type);
+		}
+	}
+}
+
+
+
+
+/**
+ * The original queue of the Dijkstra's loops: java.util.PriorityQueue, where decrease-key is an O(n) remove followed by an add.
+ * Kept as the default so that ties are broken exactly as before.
+ */
+class PriorityVertexQueue implements VertexQueue {
+	private final int[] key;
+	private final PriorityQueue<Integer> queue;
+
+	/**
+	 * Constructor.
+	 * @param  capacity The number of vertices.
+	 */
+	PriorityVertexQueue(int capacity) {
+		key = new int[capacity];
+		queue = new PriorityQueue<Integer>(11, (a, b) -> Integer.compare(key[a], key[b]));
+	}
+
+	public void offer(int v, int newKey) {
+		queue.remove(v);
+		key[v] = newKey;
+		queue.add(v);
+	}
+
+	public int poll() {
+		return queue.poll();
+	}
+
+	public int minKey() {
+		return key[queue.peek()];
+	}
+
+	public int size() {
+		return queue.size();
+	}
+
+	public boolean isEmpty() {
+		return queue.isEmpty();
+	}
+
+	public void clear() {
+		queue.clear();
+	}
+}
@@ -0,0 +1,73 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * @author Wah Loon Keng
+ */
+/**
+ * The JMH suite: import, build, nearest-depot search, path reduction and a single shortest path, on each dataset and location set.
+ * Reports throughput and average time; run with "-prof gc" for the allocation rate, as "make bench" does.
+ * The operations are those of BenchmarkTargets, in the default package, looked up by reflection once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+	@Param({"small-1", "medium-1", "large-1"})
+	public String dataset;
+	@Param({"easy", "medium", "hard"})
+	public String locations;
+	private Callable<Object> importGraph, buildGraph, computeAllStations, pathReduce, findShortestPath;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		importGraph = target("importGraph");
+		buildGraph = target("buildGraph");
+		computeAllStations = target("computeAllStations");
+		pathReduce = target("pathReduce");
+		findShortestPath = target("findShortestPath");
+	}
+
+	@SuppressWarnings("unchecked")
+	private Callable<Object> target(String operation) throws Exception {
+		return (Callable<Object>) Class.forName("BenchmarkTargets")
+			.getMethod("target", String.class, String.class, String.class)
+			.invoke(null, operation, dataset, locations);
+	}
+
+	/** Importer.importGraph(): read the location and edge files */
+	@Benchmark
+	public Object importGraph() throws Exception {
+		return importGraph.call();
+	}
+
+	/** Builder.buildGraph(): import, and add the nodes and edges */
+	@Benchmark
+	public Object buildGraph() throws Exception {
+		return buildGraph.call();
+	}
+
+	/** NNGraph.computeAllStations(): the path from each station to its nearest depot */
+	@Benchmark
+	public Object computeAllStations() throws Exception {
+		return computeAllStations.call();
+	}
+
+	/** NNGraph.pathReduce(): reduce the paths of computeAllStations() */
+	@Benchmark
+	public Object pathReduce() throws Exception {
+		return pathReduce.call();
+	}
+
+	/** Graph.findShortestPath(): one station to one depot, a different pair each call */
+	@Benchmark
+	public Object findShortestPath() throws Exception {
+		return findShortestPath.call();
+	}
+}